@@ -0,0 +1,110 @@
+#!/usr/bin/env bash
+#
+# Startup-time report for the AI Analysis Service.
+#
+# Builds the AOT-enabled jar, creates CDS archives and launches the service in each
+# runtime mode, recording the STARTUP-REPORT lines logged by StartupTimingReporter:
+#   ready             -> Spring context refreshed, listeners started
+#   first-assignment  -> first Kafka partitions assigned (i.e., the instance is consuming)
+#
+# Requirements: a reachable Kafka broker (KAFKA_HOST, default localhost) and JDK 21.
+# The native mode is included when target/ai-analysis-service exists
+# (build it with: ./mvnw -Pnative native:compile).
+#
+# Usage: scripts/startup-report.sh [runs-per-mode]
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-3}"
+TIMEOUT_SECONDS="${STARTUP_TIMEOUT_SECONDS:-90}"
+WORK_DIR="target/startup"
+REPORT="target/startup-report.md"
+export GROK_API_KEY="${GROK_API_KEY:-startup-report}"
+
+# Keep the measurement about our own startup, not about reaching Groq
+COMMON_OPTS=(-Dgrok.warmup.enabled=false)
+
+echo ">> Building AOT-processed jar"
+sh ./mvnw -q -B -Paot -DskipTests package
+JAR="$(ls target/ai-analysis-service-*.jar | grep -v original | head -n 1)"
+
+echo ">> Extracting ${JAR} for CDS"
+rm -rf "${WORK_DIR}"
+mkdir -p "${WORK_DIR}"
+java -Djarmode=tools -jar "${JAR}" extract --destination "${WORK_DIR}/extracted"
+APP="${WORK_DIR}/extracted/$(basename "${JAR}")"
+
+train_cds() {
+    local archive="$1"; shift
+    echo ">> CDS training run -> ${archive}"
+    java -XX:ArchiveClassesAtExit="${archive}" -Dspring.context.exit=onRefresh \
+        -Dspring.kafka.admin.auto-create=false "${COMMON_OPTS[@]}" "$@" -jar "${APP}" > /dev/null
+}
+
+train_cds "${WORK_DIR}/jvm.jsa"
+train_cds "${WORK_DIR}/aot.jsa" -Dspring.aot.enabled=true
+
+# Runs one launch command and prints "<readyMs> <firstAssignmentMs>"
+measure() {
+    local log="${WORK_DIR}/run.log"
+    "$@" > "${log}" 2>&1 &
+    local pid=$!
+    local waited=0
+    while ! grep -q "phase=first-assignment" "${log}"; do
+        if ! kill -0 "${pid}" 2> /dev/null || [ "${waited}" -ge $((TIMEOUT_SECONDS * 10)) ]; then
+            kill "${pid}" 2> /dev/null || true
+            echo "- -"
+            return
+        fi
+        sleep 0.1
+        waited=$((waited + 1))
+    done
+    kill "${pid}" 2> /dev/null || true
+    wait "${pid}" 2> /dev/null || true
+
+    local ready first
+    ready="$(grep "phase=ready" "${log}" | sed -E 's/.*elapsedMs=([0-9]+).*/\1/' | head -n 1)"
+    first="$(grep "phase=first-assignment" "${log}" | sed -E 's/.*elapsedMs=([0-9]+).*/\1/' | head -n 1)"
+    echo "${ready:--} ${first:--}"
+}
+
+declare -A MODES=(
+    ["jvm"]="java ${COMMON_OPTS[*]} -jar ${APP}"
+    ["cds"]="java ${COMMON_OPTS[*]} -XX:SharedArchiveFile=${WORK_DIR}/jvm.jsa -jar ${APP}"
+    ["aot"]="java ${COMMON_OPTS[*]} -Dspring.aot.enabled=true -jar ${APP}"
+    ["aot+cds"]="java ${COMMON_OPTS[*]} -Dspring.aot.enabled=true -XX:SharedArchiveFile=${WORK_DIR}/aot.jsa -jar ${APP}"
+)
+ORDER=("jvm" "cds" "aot" "aot+cds")
+
+if [ -x target/ai-analysis-service ]; then
+    MODES["native"]="target/ai-analysis-service ${COMMON_OPTS[*]}"
+    ORDER+=("native")
+fi
+
+{
+    echo "# Startup-time report"
+    echo
+    echo "Runs per mode: ${RUNS}. Times are milliseconds since JVM/process start (best run)."
+    echo
+    echo "| Mode | Context ready (ms) | First partition assigned (ms) |"
+    echo "|------|--------------------|-------------------------------|"
+} > "${REPORT}"
+
+for mode in "${ORDER[@]}"; do
+    best_ready="-"
+    best_first="-"
+    for _ in $(seq 1 "${RUNS}"); do
+        # shellcheck disable=SC2086
+        read -r ready first < <(measure ${MODES[$mode]})
+        if [ "${first}" != "-" ] && { [ "${best_first}" = "-" ] || [ "${first}" -lt "${best_first}" ]; }; then
+            best_ready="${ready}"
+            best_first="${first}"
+        fi
+    done
+    echo ">> ${mode}: ready=${best_ready}ms first-assignment=${best_first}ms"
+    echo "| ${mode} | ${best_ready} | ${best_first} |" >> "${REPORT}"
+done
+
+echo ">> Report written to ${REPORT}"
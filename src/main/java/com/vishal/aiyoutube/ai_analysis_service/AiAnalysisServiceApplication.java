@@ -2,7 +2,9 @@ package com.vishal.aiyoutube.ai_analysis_service;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+@EnableScheduling
 @SpringBootApplication
 public class AiAnalysisServiceApplication {
 
@@ -2,16 +2,34 @@ package com.vishal.aiyoutube.ai_analysis_service.config;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vishal.aiyoutube.ai_analysis_service.dto.GrokChatRequest;
 import com.vishal.aiyoutube.ai_analysis_service.dto.GrokChatResponse;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
-import java.util.ArrayList;
-import java.util.HashMap;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * GrokClient serves as the primary gateway for interacting with the Groq/Grok AI models.
@@ -28,10 +46,25 @@ public class GrokClient {
      */
     private final WebClient grokWebClient;
 
-    /** * Secure API key retrieved from application properties (grok.api-key).
+    /**
+     * Writes request bodies directly into pooled Netty buffers.
+     */
+    private final GrokRequestEncoder requestEncoder;
+
+    /**
+     * Wraps encoded ByteBufs so WebClient hands them to Netty without copying.
      */
-    @Value("${grok.api-key}")
-    private String apiKey;
+    private final NettyDataBufferFactory dataBufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    /**
+     * Pool of API keys; each request leases the least-loaded usable key.
+     */
+    private final GrokKeyPool keyPool;
+
+    /**
+     * One 'grok.chat' span per HTTP exchange, child of the caller's attempt span.
+     */
+    private final ObservationRegistry observationRegistry;
 
     /** * Specific AI model to be used (e.g., llama-3.3-70b-versatile or grok-1).
      */
@@ -43,6 +76,23 @@ public class GrokClient {
     @Value("${grok.temperature}")
     private Double temperature;
 
+    /** * Ask for a single JSON object (response_format json_object) instead of free text.
+     */
+    @Value("${grok.json-mode}")
+    private boolean jsonMode;
+
+    /** * Optional sampling seed; blank leaves sampling unseeded.
+     */
+    @Value("${grok.seed:}")
+    private String seed;
+
+    /** * Stop sequences for free-text mode; Groq does not accept them together with JSON mode.
+     */
+    @Value("${grok.stop-sequences:}")
+    private List<String> stopSequences;
+
+    private Long parsedSeed;
+
     /**
      * Specialized ObjectMapper configured to be 'lenient'.
      * It will ignore any new or unknown fields returned by the AI provider to prevent
@@ -51,6 +101,35 @@ public class GrokClient {
     private final ObjectMapper lenientMapper = new ObjectMapper()
             .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
+    /**
+     * Pre-encoded request envelopes ({"model":...,"temperature":...,"messages":[...), one per model.
+     * The set of models is small (default plus the token-budget fallback), so each is encoded once.
+     */
+    private final Map<String, byte[]> requestHeads = new ConcurrentHashMap<>();
+
+    /** * Timeout for calls without a topic deadline (grok.timeout-seconds).
+     */
+    @Value("${grok.timeout-seconds}")
+    private int timeoutSeconds;
+
+    private Duration defaultTimeout;
+
+    @PostConstruct
+    void initRequestHead() {
+        requestHeads.put(model, requestEncoder.encodeRequestHead(model, temperature));
+        defaultTimeout = Duration.ofSeconds(timeoutSeconds);
+        parsedSeed = seed.isBlank() ? null : Long.parseLong(seed.trim());
+        stopSequences = stopSequences.stream().filter(s -> !s.isEmpty()).limit(4).toList();
+    }
+
+    public Duration getDefaultTimeout() {
+        return defaultTimeout;
+    }
+
+    public String getDefaultModel() {
+        return model;
+    }
+
     /**
      * Orchestrates a Chat Completion request to the AI model.
      * * @param systemPrompt Defines the AI's persona and rules (e.g., "Act as a financial analyst").
@@ -58,42 +137,166 @@ public class GrokClient {
      * @return The text-based content generated by the AI.
      */
     public String chat(String systemPrompt, String userPrompt) {
-        // Prepare the request payload as a Map for easy JSON serialization
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("model", model);
-        requestBody.put("temperature", temperature);
-
-        // Build the message list (System roles guide the AI, User roles provide the data)
-        List<Map<String, String>> messages = new ArrayList<>();
-        messages.add(Map.of("role", "system", "content", systemPrompt));
-        messages.add(Map.of("role", "user", "content", userPrompt));
-        requestBody.put("messages", messages);
-
-        log.info("Dispatching AI analysis request using model: {}", model);
+        return chat(out -> out.writeEscaped(systemPrompt), out -> out.writeEscaped(userPrompt));
+    }
 
+    /**
+     * Streaming variant of {@link #chat(String, String)}.
+     * Both messages are written straight into the request buffer, so callers can pass
+     * pre-encoded prompts and raw transcript segments without concatenating them first.
+     * * @param systemPrompt Writer for the system message (usually pre-encoded bytes).
+     * @param userPrompt Writer for the user message (prompt template plus transcript).
+     * @return The text-based content generated by the AI.
+     */
+    public String chat(GrokRequestEncoder.PromptWriter systemPrompt, GrokRequestEncoder.PromptWriter userPrompt) {
         /**
          * Execute the synchronous POST request.
-         * Note: While WebClient is reactive, we use .block() here because the
+         * Note: While WebClient is reactive, we block here because the
          * final report synthesis is a terminal step in our business logic chain.
          */
-        String rawResponse = grokWebClient.post()
+        return await(chatAsync(systemPrompt, userPrompt, defaultTimeout));
+    }
+
+    /**
+     * Non-blocking variant used for deadline-bound calls.
+     * * @param timeout Upper bound for the whole call, typically the topic's remaining time.
+     * @return Future of the generated text; cancelling it aborts the HTTP exchange and frees the connection.
+     */
+    public CompletableFuture<String> chatAsync(GrokRequestEncoder.PromptWriter systemPrompt,
+                                               GrokRequestEncoder.PromptWriter userPrompt,
+                                               Duration timeout) {
+        return chatAsync(model, null, systemPrompt, userPrompt, timeout, usage -> { });
+    }
+
+    /**
+     * Same as {@link #chatAsync(GrokRequestEncoder.PromptWriter, GrokRequestEncoder.PromptWriter, Duration)}
+     * for an explicit model and output bound, reporting the response's token usage.
+     * * @param callModel Model to call; null for the configured default.
+     * @param maxTokens Upper bound of generated tokens; null for the provider's default.
+     * @param usageListener Receives the usage block of a successful response (not called when absent).
+     */
+    public CompletableFuture<String> chatAsync(String callModel,
+                                               Integer maxTokens,
+                                               GrokRequestEncoder.PromptWriter systemPrompt,
+                                               GrokRequestEncoder.PromptWriter userPrompt,
+                                               Duration timeout,
+                                               Consumer<GrokChatResponse.Usage> usageListener) {
+        String effectiveModel = callModel != null ? callModel : model;
+        byte[] requestHead = requestHeads.computeIfAbsent(effectiveModel,
+                m -> requestEncoder.encodeRequestHead(m, temperature));
+
+        Observation observation = Observation.createNotStarted("grok.chat", observationRegistry)
+                .contextualName("groq chat")
+                .lowCardinalityKeyValue("model", effectiveModel)
+                .highCardinalityKeyValue("max.tokens", String.valueOf(maxTokens))
+                .start();
+
+        GrokKeyPool.Lease lease;
+        // Encode the Chat Completions JSON directly into a pooled buffer (released by Netty after the write,
+        // or below when the exchange ends before the body was handed over)
+        ByteBuf requestBody;
+        try {
+            lease = keyPool.acquire();
+            observation.lowCardinalityKeyValue("key", lease.label());
+            try {
+                requestBody = requestEncoder.encode(requestHead, systemPrompt, userPrompt, generationOptions(maxTokens));
+            } catch (RuntimeException e) {
+                lease.recordFailure(true);
+                throw e;
+            }
+        } catch (RuntimeException e) {
+            observation.error(e);
+            observation.stop();
+            throw e;
+        }
+        observation.highCardinalityKeyValue("request.bytes", String.valueOf(requestBody.readableBytes()));
+
+        log.info("Dispatching AI analysis request using model: {} ({} bytes, max_tokens {}, timeout {}s, {})",
+                effectiveModel, requestBody.readableBytes(), maxTokens, timeout.toSeconds(), lease.label());
+
+        /**
+         * Buffer Ownership:
+         * Whoever flips the flag first owns the buffer. Subscribing the body hands it to the
+         * HTTP writer; if the connection fails, the call times out or is cancelled first,
+         * releaseUnsent gives it back instead, so no pooled memory is left behind.
+         */
+        AtomicBoolean bodyHandedOver = new AtomicBoolean();
+        Mono<DataBuffer> requestBodyPublisher = Mono.<DataBuffer>fromSupplier(() -> bodyHandedOver.compareAndSet(false, true)
+                        ? dataBufferFactory.wrap(requestBody)
+                        : null)
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+        Runnable releaseUnsent = () -> {
+            if (bodyHandedOver.compareAndSet(false, true)) requestBody.release();
+        };
+
+        return grokWebClient.post()
                 .uri("/openai/v1/chat/completions")
-                .header("Authorization", "Bearer " + apiKey)
-                .header("Content-Type", "application/json")
-                .bodyValue(requestBody)
-                .retrieve()
+                .header("Authorization", "Bearer " + lease.key())
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(requestBody.readableBytes())
+                .body(BodyInserters.fromDataBuffers(requestBodyPublisher))
                 /**
                  * Error Handling Strategy:
-                 * Maps 4xx/5xx status codes into RuntimeExceptions, exposing the
-                 * raw error body from the AI provider for faster debugging.
+                 * Every response feeds the key's rate-limit budget first; 4xx/5xx status codes
+                 * are then mapped into RuntimeExceptions, exposing the raw error body from
+                 * the AI provider for faster debugging.
                  */
-                .onStatus(status -> status.isError(), response ->
-                        response.bodyToMono(String.class)
-                                .map(body -> new RuntimeException("Groq API Error: " + body))
-                )
-                .bodyToMono(String.class)
-                .block();
+                .exchangeToMono(response -> {
+                    lease.recordResponse(response.statusCode(), response.headers().asHttpHeaders());
+                    if (response.statusCode().isError()) {
+                        return response.bodyToMono(String.class)
+                                .defaultIfEmpty("")
+                                .flatMap(body -> Mono.<String>error(new RuntimeException(
+                                        "Groq API Error (" + lease.label() + "): " + body)));
+                    }
+                    return response.bodyToMono(String.class);
+                })
+                .timeout(timeout)
+                // Before the caller sees the outcome, so a failed call has already given its buffer back
+                .doOnTerminate(releaseUnsent)
+                .doOnCancel(releaseUnsent)
+                // No-ops once the response was recorded; covers connection errors, timeouts and cancellation
+                .doOnError(ex -> lease.recordFailure(false))
+                .doOnCancel(() -> lease.recordFailure(true))
+                .map(rawResponse -> extractContent(rawResponse, observation, usageListener))
+                .doOnError(observation::error)
+                // Also ends the span when the caller cancels the call (topic closed)
+                .doFinally(signal -> observation.stop())
+                .toFuture();
+    }
+
+    /**
+     * Generation controls written after the messages: JSON mode or stop sequences, the
+     * per-call output bound and the optional seed.
+     */
+    private GrokChatRequest generationOptions(Integer maxTokens) {
+        return GrokChatRequest.builder()
+                .responseFormat(jsonMode
+                        ? GrokChatRequest.ResponseFormat.builder().type(GrokChatRequest.ResponseFormat.JSON_OBJECT).build()
+                        : null)
+                .stop(!jsonMode && !stopSequences.isEmpty() ? stopSequences : null)
+                .maxTokens(maxTokens)
+                .seed(parsedSeed)
+                .build();
+    }
 
+    /**
+     * Blocks for a call started with {@link #chatAsync}, unwrapping its failure.
+     */
+    public static String await(CompletableFuture<String> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new RuntimeException("Groq call timed out", e.getCause());
+            }
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private String extractContent(String rawResponse, Observation observation,
+                                  Consumer<GrokChatResponse.Usage> usageListener) {
         try {
             // Parse the raw JSON string into our structured DTO
             GrokChatResponse response = lenientMapper.readValue(rawResponse, GrokChatResponse.class);
@@ -105,13 +308,22 @@ public class GrokClient {
              */
             if (response.getUsage() != null) {
                 log.info("Analysis Service Usage -> Total Tokens: {}", response.getUsage().getTotal_tokens());
+                observation.highCardinalityKeyValue("tokens.prompt", String.valueOf(response.getUsage().getPrompt_tokens()));
+                observation.highCardinalityKeyValue("tokens.completion", String.valueOf(response.getUsage().getCompletion_tokens()));
+                usageListener.accept(response.getUsage());
             }
 
             // Extract and return the actual text from the first choice in the response
-            return response.getChoices().get(0).getMessage().getContent();
+            GrokChatResponse.Choice choice = response.getChoices().get(0);
+            observation.highCardinalityKeyValue("finish.reason", String.valueOf(choice.getFinish_reason()));
+            if ("length".equals(choice.getFinish_reason())) {
+                // Truncated JSON is still handed on: the extractor and the repair request may save it
+                log.warn("AI response was cut off at max_tokens");
+            }
+            return choice.getMessage().getContent();
         } catch (Exception e) {
             log.error("Failed to process AI response payload for Topic.");
             throw new RuntimeException("Failed to parse analysis response", e);
         }
     }
-}
\ No newline at end of file
+}
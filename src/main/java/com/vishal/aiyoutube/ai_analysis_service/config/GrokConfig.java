@@ -1,45 +1,126 @@
 package com.vishal.aiyoutube.ai_analysis_service.config;
 
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.Http2AllocationStrategy;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import java.time.Duration;
+import java.util.function.Function;
 
 /**
  * Configuration class for the AI Analysis Service's networking layer.
  * This class optimizes the WebClient specifically for the high-latency
  * nature of Large Language Model (LLM) processing.
  */
+@Slf4j
 @Configuration
 public class GrokConfig {
 
+    /**
+     * Dedicated connection pool for the Groq API.
+     * * KEY ARCHITECTURAL FEATURES:
+     * 1. Sizing: max-connections and the pending-acquire queue are sized for LLM concurrency,
+     * so bursts queue inside the pool (bounded) instead of failing immediately.
+     * 2. Eviction: Idle and over-aged connections are evicted in the background, so we never
+     * hand out a socket the provider's load balancer has already closed.
+     * 3. HTTP/2: When enabled, a multiplexing allocation strategy lets many requests share
+     * a few TLS connections instead of one connection per in-flight call.
+     * 4. Metrics: Pool gauges (active, idle, pending) are published to Micrometer.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider grokConnectionProvider(
+            @Value("${grok.pool.max-connections}") int maxConnections,
+            @Value("${grok.pool.pending-acquire-max-count}") int pendingAcquireMaxCount,
+            @Value("${grok.pool.pending-acquire-timeout-ms}") long pendingAcquireTimeoutMs,
+            @Value("${grok.pool.max-idle-seconds}") long maxIdleSeconds,
+            @Value("${grok.pool.max-life-seconds}") long maxLifeSeconds,
+            @Value("${grok.pool.eviction-interval-seconds}") long evictionIntervalSeconds,
+            @Value("${grok.pool.metrics-enabled}") boolean metricsEnabled,
+            @Value("${grok.http2.enabled}") boolean http2Enabled,
+            @Value("${grok.http2.max-concurrent-streams}") long maxConcurrentStreams,
+            @Value("${grok.warmup.connections}") int warmupConnections) {
+
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("grok")
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofSeconds(maxIdleSeconds))
+                .maxLifeTime(Duration.ofSeconds(maxLifeSeconds))
+                .evictInBackground(Duration.ofSeconds(evictionIntervalSeconds))
+                // LIFO keeps the hottest connections busy and lets surplus ones age out
+                .lifo()
+                .metrics(metricsEnabled);
+
+        if (http2Enabled) {
+            builder.allocationStrategy(Http2AllocationStrategy.builder()
+                    .maxConnections(maxConnections)
+                    .minConnections(Math.min(Math.max(warmupConnections, 1), maxConnections))
+                    .maxConcurrentStreams(maxConcurrentStreams)
+                    .build());
+        } else {
+            builder.maxConnections(maxConnections);
+        }
+
+        log.info("Groq connection pool: maxConnections={}, pendingAcquireMaxCount={}, http2={}",
+                maxConnections, pendingAcquireMaxCount, http2Enabled);
+        return builder.build();
+    }
+
+    /**
+     * Reactor Netty client shared by the WebClient and the startup warmup.
+     * * @param timeoutSeconds The maximum duration to wait for the AI to synthesize a response.
+     * * Because synthesizing a full consensus report can take 10-30 seconds, we override the
+     * default short timeouts to prevent "ReadTimeoutExceptions". The connect timeout, on the
+     * other hand, is kept short so a dead endpoint fails fast.
+     */
+    @Bean
+    public HttpClient grokHttpClient(
+            ConnectionProvider grokConnectionProvider,
+            @Value("${grok.base-url}") String baseUrl,
+            @Value("${grok.timeout-seconds}") int timeoutSeconds,
+            @Value("${grok.pool.connect-timeout-ms}") int connectTimeoutMs,
+            @Value("${grok.pool.metrics-enabled}") boolean metricsEnabled,
+            @Value("${grok.http2.enabled}") boolean http2Enabled) {
+
+        HttpClient httpClient = HttpClient.create(grokConnectionProvider)
+                .baseUrl(baseUrl)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofSeconds(timeoutSeconds))
+                // Paths are static (/openai/v1/...), so the raw URI is a safe low-cardinality tag
+                .metrics(metricsEnabled, Function.identity());
+
+        if (http2Enabled) {
+            httpClient = baseUrl.startsWith("https")
+                    ? httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure()
+                    : httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        return httpClient;
+    }
+
     /**
      * Creates a specialized WebClient bean for communicating with the Groq/Grok API.
      * * @param baseUrl The endpoint for the AI provider (injected from grok.base-url).
-     * @param timeoutSeconds The maximum duration to wait for the AI to synthesize a response.
      * * KEY ARCHITECTURAL FEATURES:
      * 1. Reactive Netty HttpClient: Uses the underlying Netty engine to manage
      * asynchronous connections efficiently.
-     * 2. Response Timeout: Crucial for AI services. Because synthesizing a full
-     * consensus report can take 10-30 seconds, we override the default
-     * short timeouts to prevent "ReadTimeoutExceptions".
+     * 2. Pooled Connections: Backed by the tuned 'grokConnectionProvider' instead of
+     * Reactor Netty's global default pool.
      */
     @Bean
     public WebClient grokWebClient(
-            @Value("${grok.base-url}") String baseUrl,
-            @Value("${grok.timeout-seconds}") int timeoutSeconds) {
-
-        // Build the HTTP client with a custom response timeout duration
-        HttpClient httpClient = HttpClient.create()
-                .responseTimeout(Duration.ofSeconds(timeoutSeconds));
+            HttpClient grokHttpClient,
+            @Value("${grok.base-url}") String baseUrl) {
 
         // Assemble the WebClient with the customized Reactor Netty connector
         return WebClient.builder()
                 .baseUrl(baseUrl)
-                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .clientConnector(new ReactorClientHttpConnector(grokHttpClient))
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,81 @@
+package com.vishal.aiyoutube.ai_analysis_service.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+
+/**
+ * Pre-opens connections to the Groq API right after startup.
+ * Without it, the first analyses after a deploy pay for DNS resolution, event-loop
+ * initialization and a full TLS handshake on top of the LLM latency.
+ * * KEY ARCHITECTURAL FEATURES:
+ * 1. Runs asynchronously on ApplicationReadyEvent, so it never delays Kafka consumption.
+ * 2. Issues parallel lightweight GET /openai/v1/models calls; each completed exchange
+ * leaves a TLS-established keep-alive connection in the 'grok' pool.
+ * 3. Failures are logged and ignored; a cold pool is a latency issue, not an outage.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GrokConnectionWarmer {
+
+    private static final String WARMUP_PATH = "/openai/v1/models";
+
+    private final HttpClient grokHttpClient;
+    private final GrokKeyPool keyPool;
+
+    @Value("${grok.warmup.enabled}")
+    private boolean enabled;
+
+    @Value("${grok.warmup.connections}")
+    private int connections;
+
+    @Value("${grok.warmup.timeout-seconds}")
+    private int timeoutSeconds;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled || connections <= 0) return;
+
+        long startNanos = System.nanoTime();
+        grokHttpClient.warmup()
+                .thenMany(Flux.range(0, connections)
+                        .flatMap(i -> openConnection(), connections))
+                .filter(Boolean::booleanValue)
+                .count()
+                .timeout(Duration.ofSeconds(timeoutSeconds))
+                .subscribe(
+                        warmed -> log.info("Groq connection pool warmed: {}/{} connections in {} ms",
+                                warmed, connections, Duration.ofNanos(System.nanoTime() - startNanos).toMillis()),
+                        ex -> log.warn("Groq connection warmup failed: {}", ex.getMessage()));
+    }
+
+    /**
+     * Performs one request and drains the response so the connection returns to the pool.
+     * Any HTTP response counts: even a 4xx means the TCP and TLS handshakes are done.
+     */
+    private Mono<Boolean> openConnection() {
+        return grokHttpClient
+                .headers(h -> h.set("Authorization", "Bearer " + keyPool.anyKey()))
+                .get()
+                .uri(WARMUP_PATH)
+                .responseSingle((response, body) -> {
+                    if (response.status().code() >= 400) {
+                        log.debug("Warmup request returned {}", response.status());
+                    }
+                    return body.then(Mono.just(true));
+                })
+                .onErrorResume(ex -> {
+                    log.debug("Warmup connection failed: {}", ex.getMessage());
+                    return Mono.just(false);
+                });
+    }
+}
@@ -0,0 +1,327 @@
+package com.vishal.aiyoutube.ai_analysis_service.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * GrokKeyPool spreads Groq requests over several API keys.
+ * * KEY ARCHITECTURAL FEATURES:
+ * 1. Learned Budgets: Every response's x-ratelimit-* headers update the key's remaining
+ * requests and tokens and when they reset, so the pool tracks each key's real quota.
+ * 2. Least-Loaded First: A request takes the usable key with the fewest calls in flight,
+ * breaking ties by the largest remaining token and request budget.
+ * 3. Quarantine: A 429 benches the key until Retry-After (or the budget reset); 401/403
+ * benches it for grok.keys.auth-failure-quarantine-seconds; repeated 5xx or network
+ * errors bench it for grok.keys.failure-quarantine-seconds.
+ * 4. Observability: Per-key gauges (in flight, remaining budgets, utilization, quarantine)
+ * and request counters by outcome, tagged with a masked key label, never the key itself.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GrokKeyPool {
+
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    private final MeterRegistry meterRegistry;
+
+    /** Comma-separated pool; falls back to the single grok.api-key when empty. */
+    @Value("${grok.api-keys}")
+    private String apiKeys;
+
+    @Value("${grok.api-key}")
+    private String apiKey;
+
+    @Value("${grok.keys.failure-threshold}")
+    private int failureThreshold;
+
+    @Value("${grok.keys.failure-quarantine-seconds}")
+    private long failureQuarantineSeconds;
+
+    @Value("${grok.keys.auth-failure-quarantine-seconds}")
+    private long authFailureQuarantineSeconds;
+
+    @Value("${grok.keys.default-retry-after-seconds}")
+    private long defaultRetryAfterSeconds;
+
+    private final List<KeyState> keys = new ArrayList<>();
+
+    @PostConstruct
+    void init() {
+        LinkedHashSet<String> distinct = new LinkedHashSet<>();
+        Arrays.stream((apiKeys.isBlank() ? apiKey : apiKeys).split(","))
+                .map(String::trim)
+                .filter(k -> !k.isEmpty())
+                .forEach(distinct::add);
+
+        int index = 0;
+        for (String key : distinct) {
+            KeyState state = new KeyState(key, "key-" + index++);
+            keys.add(state);
+            registerMetrics(state);
+        }
+
+        if (keys.isEmpty()) {
+            log.warn("No Groq API key configured (grok.api-keys / grok.api-key); LLM calls will fail");
+        } else {
+            log.info("Groq key pool initialized with {} key(s)", keys.size());
+        }
+    }
+
+    /**
+     * Reserves the least-loaded usable key for one request. When every key is benched,
+     * the one that becomes usable first is returned rather than failing outright.
+     */
+    public Lease acquire() {
+        if (keys.isEmpty()) throw new RuntimeException("No Groq API key configured");
+
+        long now = System.nanoTime();
+        KeyState chosen;
+        synchronized (this) {
+            chosen = keys.stream()
+                    .filter(k -> k.nanosUntilAvailable(now) == 0)
+                    .min(Comparator.comparingInt((KeyState k) -> k.inFlight.get())
+                            .thenComparing(Comparator.comparingLong((KeyState k) -> k.remainingTokens).reversed())
+                            .thenComparing(Comparator.comparingLong((KeyState k) -> k.remainingRequests).reversed()))
+                    .orElseGet(() -> {
+                        KeyState soonest = keys.stream().min(Comparator.comparingLong(k -> k.nanosUntilAvailable(now))).orElseThrow();
+                        log.warn("All Groq keys are quarantined or exhausted; using {} early", soonest.label);
+                        return soonest;
+                    });
+            chosen.inFlight.incrementAndGet();
+            // Optimistically spend one request so concurrent callers spread out before headers arrive
+            if (chosen.remainingRequests != Long.MAX_VALUE && chosen.remainingRequests > 0) chosen.remainingRequests--;
+        }
+        return new Lease(chosen);
+    }
+
+    /**
+     * Any configured key, for requests that only need to reach the endpoint (e.g. warmup).
+     */
+    public String anyKey() {
+        return keys.isEmpty() ? "" : keys.get(0).key;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    private void registerMetrics(KeyState state) {
+        Gauge.builder("grok.keys.in-flight", state, s -> s.inFlight.get())
+                .tag("key", state.label).register(meterRegistry);
+        Gauge.builder("grok.keys.remaining-requests", state, s -> known(s.remainingRequests))
+                .tag("key", state.label).register(meterRegistry);
+        Gauge.builder("grok.keys.remaining-tokens", state, s -> known(s.remainingTokens))
+                .tag("key", state.label).register(meterRegistry);
+        Gauge.builder("grok.keys.utilization", state, KeyState::utilization)
+                .description("Share of the key's request budget used in the current window")
+                .tag("key", state.label).register(meterRegistry);
+        Gauge.builder("grok.keys.quarantined", state, s -> s.quarantinedUntil - System.nanoTime() > 0 ? 1 : 0)
+                .tag("key", state.label).register(meterRegistry);
+    }
+
+    private static double known(long value) {
+        return value == Long.MAX_VALUE ? Double.NaN : value;
+    }
+
+    /**
+     * Parses Groq's reset durations such as "2m59.56s", "7.66s" or "120ms".
+     */
+    static Duration parseResetDuration(String value) {
+        if (value == null || value.isBlank()) return null;
+        Matcher matcher = DURATION_PART.matcher(value.trim());
+        double millis = 0;
+        boolean found = false;
+        while (matcher.find()) {
+            found = true;
+            double amount = Double.parseDouble(matcher.group(1));
+            millis += switch (matcher.group(2)) {
+                case "h" -> amount * 3_600_000;
+                case "m" -> amount * 60_000;
+                case "s" -> amount * 1_000;
+                default -> amount;
+            };
+        }
+        return found ? Duration.ofMillis((long) Math.ceil(millis)) : null;
+    }
+
+    private static long parseLong(HttpHeaders headers, String name) {
+        String value = headers.getFirst(name);
+        if (value == null) return -1;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * One request's hold on a key. Exactly one of the record methods must be called.
+     */
+    public final class Lease {
+
+        private final KeyState state;
+        private boolean settled;
+
+        private Lease(KeyState state) {
+            this.state = state;
+        }
+
+        public String key() {
+            return state.key;
+        }
+
+        public String label() {
+            return state.label;
+        }
+
+        /**
+         * Learns the key's budget from the response and benches it if the status says so.
+         */
+        public void recordResponse(HttpStatusCode status, HttpHeaders headers) {
+            if (!settle()) return;
+            long now = System.nanoTime();
+
+            synchronized (GrokKeyPool.this) {
+                long limitRequests = parseLong(headers, "x-ratelimit-limit-requests");
+                long remainingRequests = parseLong(headers, "x-ratelimit-remaining-requests");
+                long remainingTokens = parseLong(headers, "x-ratelimit-remaining-tokens");
+                if (limitRequests >= 0) state.limitRequests = limitRequests;
+                if (remainingRequests >= 0) state.remainingRequests = remainingRequests;
+                if (remainingTokens >= 0) state.remainingTokens = remainingTokens;
+
+                Duration requestsReset = parseResetDuration(headers.getFirst("x-ratelimit-reset-requests"));
+                Duration tokensReset = parseResetDuration(headers.getFirst("x-ratelimit-reset-tokens"));
+                state.requestsResetAt = requestsReset != null ? now + requestsReset.toNanos() : state.requestsResetAt;
+                state.tokensResetAt = tokensReset != null ? now + tokensReset.toNanos() : state.tokensResetAt;
+
+                if (status.value() == 429) {
+                    long retryAfter = parseLong(headers, HttpHeaders.RETRY_AFTER);
+                    Duration bench = Duration.ofSeconds(retryAfter > 0 ? retryAfter : defaultRetryAfterSeconds);
+                    quarantine(now, bench, "rate limited");
+                } else if (status.value() == 401 || status.value() == 403) {
+                    quarantine(now, Duration.ofSeconds(authFailureQuarantineSeconds), "rejected (" + status.value() + ")");
+                } else if (status.is5xxServerError()) {
+                    countFailure(now);
+                } else {
+                    state.consecutiveFailures = 0;
+                }
+            }
+            count(status.is2xxSuccessful() ? "success" : status.value() == 429 ? "rate-limited" : "error");
+        }
+
+        /**
+         * The request failed without a response (connection error, timeout) or was cancelled.
+         */
+        public void recordFailure(boolean cancelled) {
+            if (!settle()) return;
+            if (!cancelled) {
+                synchronized (GrokKeyPool.this) {
+                    countFailure(System.nanoTime());
+                }
+            }
+            count(cancelled ? "cancelled" : "error");
+        }
+
+        private boolean settle() {
+            synchronized (this) {
+                if (settled) return false;
+                settled = true;
+            }
+            state.inFlight.decrementAndGet();
+            return true;
+        }
+
+        private void countFailure(long now) {
+            if (++state.consecutiveFailures >= failureThreshold) {
+                quarantine(now, Duration.ofSeconds(failureQuarantineSeconds),
+                        state.consecutiveFailures + " consecutive failures");
+                state.consecutiveFailures = 0;
+            }
+        }
+
+        private void quarantine(long now, Duration duration, String reason) {
+            long until = now + duration.toNanos();
+            // nanoTime values are only comparable by their difference
+            if (until - state.quarantinedUntil > 0) state.quarantinedUntil = until;
+            log.warn("Groq {} quarantined for {}s: {}", state.label, duration.toSeconds(), reason);
+        }
+
+        private void count(String outcome) {
+            Counter.builder("grok.keys.requests")
+                    .tag("key", state.label)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    /**
+     * Budget and health of one API key, as learned from its responses.
+     */
+    private static final class KeyState {
+        private final String key;
+        private final String label;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private long limitRequests = Long.MAX_VALUE;
+        private long remainingRequests = Long.MAX_VALUE;
+        private long remainingTokens = Long.MAX_VALUE;
+        /** nanoTime instants; System.nanoTime() may be negative, so they start at creation, not 0. */
+        private long requestsResetAt;
+        private long tokensResetAt;
+        private long quarantinedUntil;
+        private int consecutiveFailures;
+
+        private KeyState(String key, String label) {
+            this.key = key;
+            this.label = label;
+            long now = System.nanoTime();
+            this.requestsResetAt = now;
+            this.tokensResetAt = now;
+            this.quarantinedUntil = now;
+        }
+
+        /**
+         * Nanoseconds until the key may be used (0 when usable now): after quarantine and,
+         * if a budget is exhausted, after that budget resets (which also restores it).
+         */
+        private long nanosUntilAvailable(long now) {
+            long wait = quarantinedUntil - now;
+            if (remainingRequests == 0) {
+                long untilReset = requestsResetAt - now;
+                if (untilReset <= 0) remainingRequests = Long.MAX_VALUE;
+                else wait = Math.max(wait, untilReset);
+            }
+            if (remainingTokens == 0) {
+                long untilReset = tokensResetAt - now;
+                if (untilReset <= 0) remainingTokens = Long.MAX_VALUE;
+                else wait = Math.max(wait, untilReset);
+            }
+            return Math.max(wait, 0);
+        }
+
+        private double utilization() {
+            if (limitRequests == Long.MAX_VALUE || limitRequests == 0 || remainingRequests == Long.MAX_VALUE) return 0.0;
+            return 1.0 - (double) remainingRequests / limitRequests;
+        }
+    }
+}
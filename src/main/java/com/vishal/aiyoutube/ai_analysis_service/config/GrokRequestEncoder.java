@@ -0,0 +1,335 @@
+package com.vishal.aiyoutube.ai_analysis_service.config;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.GrokChatRequest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * GrokRequestEncoder writes Chat Completions request bodies straight into pooled Netty buffers.
+ * It replaces the Map/List/String graph that Jackson previously had to walk for every call.
+ * * KEY ARCHITECTURAL FEATURES:
+ * 1. Pre-encoded Fragments: Static JSON (envelope, system prompts, schemas) is escaped and
+ * UTF-8 encoded once, then copied into the buffer as raw bytes.
+ * 2. Streaming Escaping: Dynamic text (e.g., transcript segments) is JSON-escaped directly
+ * from its source into the buffer, without building an intermediate prompt String.
+ * 3. Bounded Buffers: Every request buffer has a hard capacity (grok.encoder.max-request-bytes),
+ * and per-call heap allocation is measured so the cost stays visible (grok.encoder.* meters).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GrokRequestEncoder {
+
+    private static final byte[] SYSTEM_TO_USER =
+            "\"},{\"role\":\"user\",\"content\":\"".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] MESSAGES_END = "\"}]".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RESPONSE_FORMAT_OPEN = ",\"response_format\":{\"type\":\"".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RESPONSE_FORMAT_CLOSE = "\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] MAX_TOKENS_KEY = ",\"max_tokens\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SEED_KEY = ",\"seed\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] STOP_OPEN = ",\"stop\":[".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Escape sequences for the ASCII control range, indexed by character value.
+     */
+    private static final byte[][] CONTROL_ESCAPES = new byte[0x20][];
+
+    static {
+        for (int c = 0; c < CONTROL_ESCAPES.length; c++) {
+            CONTROL_ESCAPES[c] = String.format("\\u%04x", c).getBytes(StandardCharsets.US_ASCII);
+        }
+        CONTROL_ESCAPES['\b'] = "\\b".getBytes(StandardCharsets.US_ASCII);
+        CONTROL_ESCAPES['\t'] = "\\t".getBytes(StandardCharsets.US_ASCII);
+        CONTROL_ESCAPES['\n'] = "\\n".getBytes(StandardCharsets.US_ASCII);
+        CONTROL_ESCAPES['\f'] = "\\f".getBytes(StandardCharsets.US_ASCII);
+        CONTROL_ESCAPES['\r'] = "\\r".getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static final byte[] ESCAPED_QUOTE = "\\\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ESCAPED_BACKSLASH = "\\\\".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ESCAPED_LINE_SEPARATOR = "\\u2028".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ESCAPED_PARAGRAPH_SEPARATOR = "\\u2029".getBytes(StandardCharsets.US_ASCII);
+
+    private final MeterRegistry meterRegistry;
+
+    private final ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+
+    private final com.sun.management.ThreadMXBean threadMXBean = resolveThreadMXBean();
+
+    /** Initial capacity of each request buffer; sized to fit a typical analysis prompt. */
+    @Value("${grok.encoder.initial-buffer-bytes:16384}")
+    private int initialBufferBytes;
+
+    /** Hard upper bound of a single request body. */
+    @Value("${grok.encoder.max-request-bytes:262144}")
+    private int maxRequestBytes;
+
+    private final AtomicLong requestsEncoded = new AtomicLong();
+    private final AtomicLong bytesEncoded = new AtomicLong();
+    private final AtomicLong largestRequestBytes = new AtomicLong();
+    private final AtomicLong heapBytesAllocated = new AtomicLong();
+    private final AtomicLong largestHeapAllocation = new AtomicLong();
+
+    @PostConstruct
+    void registerMetrics() {
+        FunctionCounter.builder("grok.encoder.requests", this, GrokRequestEncoder::getRequestsEncoded)
+                .description("Request bodies encoded")
+                .register(meterRegistry);
+        FunctionCounter.builder("grok.encoder.body-bytes", this, GrokRequestEncoder::getBytesEncoded)
+                .description("Request body bytes written to Netty buffers")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("grok.encoder.largest-body", this, GrokRequestEncoder::getLargestRequestBytes)
+                .description("Largest single request body so far")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("grok.encoder.heap-allocated", this, GrokRequestEncoder::getHeapBytesAllocated)
+                .description("Heap allocated by calling threads while encoding (0 if the JVM cannot measure it)")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("grok.encoder.largest-heap-allocation", this, GrokRequestEncoder::getLargestHeapAllocation)
+                .description("Largest heap allocation of a single encode call")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A source of message content that writes itself into the request body.
+     */
+    @FunctionalInterface
+    public interface PromptWriter {
+        void writeTo(ContentWriter out);
+    }
+
+    /**
+     * Writes JSON string content (without the surrounding quotes) into the request buffer.
+     */
+    public static final class ContentWriter {
+
+        private final ByteBuf buffer;
+
+        private ContentWriter(ByteBuf buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Copies bytes that were already escaped and encoded via {@link #preEncode(String)}.
+         */
+        public ContentWriter writeRaw(byte[] preEncoded) {
+            buffer.writeBytes(preEncoded);
+            return this;
+        }
+
+        /**
+         * JSON-escapes the whole character sequence into the buffer.
+         */
+        public ContentWriter writeEscaped(CharSequence text) {
+            writeEscaped(text, Integer.MAX_VALUE);
+            return this;
+        }
+
+        /**
+         * JSON-escapes at most {@code maxChars} characters of the sequence into the buffer.
+         * A surrogate pair is never split at the boundary.
+         * @return The number of source characters consumed.
+         */
+        public int writeEscaped(CharSequence text, int maxChars) {
+            int end = Math.min(text.length(), Math.max(maxChars, 0));
+            if (end < text.length() && end > 0 && Character.isHighSurrogate(text.charAt(end - 1))) {
+                end--;
+            }
+
+            int runStart = 0;
+            for (int i = 0; i < end; i++) {
+                char c = text.charAt(i);
+                byte[] escape = escapeFor(c);
+                if (escape != null) {
+                    if (i > runStart) {
+                        ByteBufUtil.writeUtf8(buffer, text, runStart, i);
+                    }
+                    buffer.writeBytes(escape);
+                    runStart = i + 1;
+                }
+            }
+            if (end > runStart) {
+                ByteBufUtil.writeUtf8(buffer, text, runStart, end);
+            }
+            return end;
+        }
+    }
+
+    /**
+     * JSON-escapes and UTF-8 encodes static text once, for later use with {@link ContentWriter#writeRaw}.
+     */
+    public static byte[] preEncode(String text) {
+        ByteBuf scratch = Unpooled.buffer(text.length() + 16);
+        try {
+            new ContentWriter(scratch).writeEscaped(text);
+            return ByteBufUtil.getBytes(scratch);
+        } finally {
+            scratch.release();
+        }
+    }
+
+    /**
+     * Pre-encodes the request envelope up to the opening of the system message content.
+     * Model and temperature are fixed per client, so this only happens at startup.
+     */
+    public byte[] encodeRequestHead(String model, double temperature) {
+        return ("{\"model\":\"" + new String(preEncode(model), StandardCharsets.UTF_8)
+                + "\",\"temperature\":" + temperature
+                + ",\"messages\":[{\"role\":\"system\",\"content\":\"")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a complete Chat Completions body into a pooled buffer.
+     * The caller owns the returned buffer and must release it (or hand it to Netty, which will).
+     * * @param requestHead Envelope produced by {@link #encodeRequestHead(String, double)}.
+     * @param systemPrompt Writer for the system message content.
+     * @param userPrompt Writer for the user message content.
+     * @return A buffer holding the UTF-8 JSON request body.
+     */
+    public ByteBuf encode(byte[] requestHead, PromptWriter systemPrompt, PromptWriter userPrompt) {
+        return encode(requestHead, systemPrompt, userPrompt, null);
+    }
+
+    /**
+     * Same as {@link #encode(byte[], PromptWriter, PromptWriter)}, followed by the generation
+     * controls of the given request (response_format, max_tokens, seed, stop) that are set.
+     * Model, temperature and messages of the options are ignored; they come from the head and writers.
+     */
+    public ByteBuf encode(byte[] requestHead, PromptWriter systemPrompt, PromptWriter userPrompt,
+                          GrokChatRequest options) {
+        long allocatedBefore = currentThreadAllocatedBytes();
+        ByteBuf buffer = allocator.buffer(Math.min(initialBufferBytes, maxRequestBytes), maxRequestBytes);
+
+        try {
+            ContentWriter out = new ContentWriter(buffer);
+            buffer.writeBytes(requestHead);
+            systemPrompt.writeTo(out);
+            buffer.writeBytes(SYSTEM_TO_USER);
+            userPrompt.writeTo(out);
+            buffer.writeBytes(MESSAGES_END);
+            if (options != null) {
+                writeOptions(out, buffer, options);
+            }
+            buffer.writeByte('}');
+        } catch (IndexOutOfBoundsException e) {
+            buffer.release();
+            throw new IllegalStateException("Chat request exceeds the configured limit of "
+                    + maxRequestBytes + " bytes", e);
+        } catch (RuntimeException e) {
+            buffer.release();
+            throw e;
+        }
+
+        recordStats(buffer.readableBytes(), allocatedBefore);
+        return buffer;
+    }
+
+    private static void writeOptions(ContentWriter out, ByteBuf buffer, GrokChatRequest options) {
+        if (options.getResponseFormat() != null) {
+            buffer.writeBytes(RESPONSE_FORMAT_OPEN);
+            out.writeEscaped(options.getResponseFormat().getType());
+            buffer.writeBytes(RESPONSE_FORMAT_CLOSE);
+        }
+        if (options.getMaxTokens() != null) {
+            buffer.writeBytes(MAX_TOKENS_KEY);
+            ByteBufUtil.writeAscii(buffer, Integer.toString(options.getMaxTokens()));
+        }
+        if (options.getSeed() != null) {
+            buffer.writeBytes(SEED_KEY);
+            ByteBufUtil.writeAscii(buffer, Long.toString(options.getSeed()));
+        }
+        if (options.getStop() != null && !options.getStop().isEmpty()) {
+            buffer.writeBytes(STOP_OPEN);
+            for (int i = 0; i < options.getStop().size(); i++) {
+                if (i > 0) buffer.writeByte(',');
+                buffer.writeByte('"');
+                out.writeEscaped(options.getStop().get(i));
+                buffer.writeByte('"');
+            }
+            buffer.writeByte(']');
+        }
+    }
+
+    private void recordStats(int requestBytes, long allocatedBefore) {
+        requestsEncoded.incrementAndGet();
+        bytesEncoded.addAndGet(requestBytes);
+        largestRequestBytes.accumulateAndGet(requestBytes, Math::max);
+
+        if (allocatedBefore >= 0) {
+            long allocated = currentThreadAllocatedBytes() - allocatedBefore;
+            heapBytesAllocated.addAndGet(allocated);
+            largestHeapAllocation.accumulateAndGet(allocated, Math::max);
+            log.debug("Encoded chat request: {} body bytes, {} heap bytes allocated", requestBytes, allocated);
+        } else {
+            log.debug("Encoded chat request: {} body bytes", requestBytes);
+        }
+    }
+
+    /** Number of request bodies encoded since startup. */
+    public long getRequestsEncoded() {
+        return requestsEncoded.get();
+    }
+
+    /** Total request body bytes written to Netty buffers. */
+    public long getBytesEncoded() {
+        return bytesEncoded.get();
+    }
+
+    /** Largest single request body written so far. */
+    public long getLargestRequestBytes() {
+        return largestRequestBytes.get();
+    }
+
+    /** Total heap bytes allocated by calling threads while encoding (0 if the JVM cannot measure it). */
+    public long getHeapBytesAllocated() {
+        return heapBytesAllocated.get();
+    }
+
+    /** Largest heap allocation observed for a single encode call. */
+    public long getLargestHeapAllocation() {
+        return largestHeapAllocation.get();
+    }
+
+    private static byte[] escapeFor(char c) {
+        if (c < 0x20) return CONTROL_ESCAPES[c];
+        if (c == '"') return ESCAPED_QUOTE;
+        if (c == '\\') return ESCAPED_BACKSLASH;
+        if (c == '\u2028') return ESCAPED_LINE_SEPARATOR;
+        if (c == '\u2029') return ESCAPED_PARAGRAPH_SEPARATOR;
+        return null;
+    }
+
+    private long currentThreadAllocatedBytes() {
+        return threadMXBean != null ? threadMXBean.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    private static com.sun.management.ThreadMXBean resolveThreadMXBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            if (!bean.isThreadAllocatedMemoryEnabled()) {
+                bean.setThreadAllocatedMemoryEnabled(true);
+            }
+            return bean;
+        }
+        return null;
+    }
+}
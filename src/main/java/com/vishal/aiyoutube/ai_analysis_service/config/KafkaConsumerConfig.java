@@ -1,7 +1,12 @@
 package com.vishal.aiyoutube.ai_analysis_service.config;
 
+import com.vishal.aiyoutube.ai_analysis_service.consumer.KeyOrderedDispatcher;
+import com.vishal.aiyoutube.ai_analysis_service.dto.TopicClosedEvent;
 import com.vishal.aiyoutube.ai_analysis_service.dto.VideoDataProcessedEvent;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -10,20 +15,42 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.support.mapping.DefaultJackson2JavaTypeMapper;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 
 @EnableKafka
 @Configuration
 public class KafkaConsumerConfig {
 
+    /**
+     * CROSS-SERVICE TYPE MAPPING:
+     * Type ids written by the YouTube Processing Service, mapped onto our local DTOs.
+     * Shared with {@link NativeHintsConfig} so the mapped classes stay reflectable in a native image.
+     */
+    static final Map<String, Class<?>> UPSTREAM_TYPE_MAPPINGS = Map.of(
+            "com.vishal.aiyoutube.youtube_processing_service.dto.VideoDataProcessedEvent",
+            VideoDataProcessedEvent.class);
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    /** Disabled by the replay profile, which feeds the orchestrator from files instead. */
+    @Value("${analysis.consumer.auto-startup}")
+    private boolean autoStartup;
+
+    /** Records per poll of the video listener; must fit into the dispatch permits above the pause watermark. */
+    @Value("${analysis.consumer.max-poll-records}")
+    private int maxPollRecords;
+
     @Bean
     public ConsumerFactory<String, VideoDataProcessedEvent> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
@@ -32,6 +59,8 @@ public class KafkaConsumerConfig {
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "ai-analysis-group-v2");
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        // Incremental rebalances: adding an instance only moves the partitions it takes over
+        props.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, CooperativeStickyAssignor.class.getName());
 
         JsonDeserializer<VideoDataProcessedEvent> jsonDeserializer =
                 new JsonDeserializer<>(VideoDataProcessedEvent.class);
@@ -39,11 +68,7 @@ public class KafkaConsumerConfig {
 
         // CROSS-SERVICE TYPE MAPPING
         DefaultJackson2JavaTypeMapper typeMapper = new DefaultJackson2JavaTypeMapper();
-        Map<String, Class<?>> idClassMapping = new HashMap<>();
-        idClassMapping.put("com.vishal.aiyoutube.youtube_processing_service.dto.VideoDataProcessedEvent",
-                com.vishal.aiyoutube.ai_analysis_service.dto.VideoDataProcessedEvent.class);
-
-        typeMapper.setIdClassMapping(idClassMapping);
+        typeMapper.setIdClassMapping(new HashMap<>(UPSTREAM_TYPE_MAPPINGS));
         jsonDeserializer.setTypeMapper(typeMapper);
 
         return new DefaultKafkaConsumerFactory<>(
@@ -54,10 +79,95 @@ public class KafkaConsumerConfig {
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, VideoDataProcessedEvent> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, VideoDataProcessedEvent> kafkaListenerContainerFactory(
+            StartupTimingReporter startupTimingReporter,
+            KeyOrderedDispatcher keyOrderedDispatcher) {
         ConcurrentKafkaListenerContainerFactory<String, VideoDataProcessedEvent> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        factory.setAutoStartup(autoStartup);
+
+        // Records may finish out of order, so the listener decides when an offset is safe to commit
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        // A paused container still delivers the batch in hand, so the batch must stay small
+        Properties consumerOverrides = new Properties();
+        consumerOverrides.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxPollRecords));
+        factory.getContainerProperties().setKafkaConsumerProperties(consumerOverrides);
+        // Continues the trace of each record from its headers (see VideoDataConsumer)
+        factory.getContainerProperties().setObservationEnabled(true);
+        factory.getContainerProperties().setConsumerRebalanceListener(
+                compositeRebalanceListener(List.of(startupTimingReporter, keyOrderedDispatcher)));
+        return factory;
+    }
+
+    /**
+     * REKEY STAGE:
+     * Batch listener for the upstream topic. A batch is committed only after every record
+     * of it was acknowledged by the broker on the internal topic (see VideoDataRekeyer).
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, VideoDataProcessedEvent> rekeyListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, VideoDataProcessedEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setAutoStartup(autoStartup);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        return factory;
+    }
+
+    /**
+     * Reads the closure topic written by all instances of this service (own records included).
+     * No group.id and no acknowledgments: the topic is read from the start by assignment and
+     * nothing is ever committed. Idle events tell the TopicClosureListener it has caught up.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, TopicClosedEvent> topicClosureListenerContainerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        JsonDeserializer<TopicClosedEvent> jsonDeserializer = new JsonDeserializer<>(TopicClosedEvent.class);
+        jsonDeserializer.addTrustedPackages("com.vishal.aiyoutube.*");
+
+        ConcurrentKafkaListenerContainerFactory<String, TopicClosedEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(
+                props,
+                new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(jsonDeserializer)
+        ));
+        factory.setAutoStartup(autoStartup);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setIdleEventInterval(500L);
         return factory;
     }
+
+    /**
+     * The container accepts a single rebalance listener; fan the callbacks out to all of ours.
+     */
+    private static ConsumerAwareRebalanceListener compositeRebalanceListener(
+            List<ConsumerAwareRebalanceListener> delegates) {
+        return new ConsumerAwareRebalanceListener() {
+            @Override
+            public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                delegates.forEach(d -> d.onPartitionsRevokedBeforeCommit(consumer, partitions));
+            }
+
+            @Override
+            public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                delegates.forEach(d -> d.onPartitionsRevokedAfterCommit(consumer, partitions));
+            }
+
+            @Override
+            public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                delegates.forEach(d -> d.onPartitionsLost(consumer, partitions));
+            }
+
+            @Override
+            public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                delegates.forEach(d -> d.onPartitionsAssigned(consumer, partitions));
+            }
+        };
+    }
 }
\ No newline at end of file
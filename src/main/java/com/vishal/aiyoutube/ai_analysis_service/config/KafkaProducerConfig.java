@@ -2,6 +2,7 @@ package com.vishal.aiyoutube.ai_analysis_service.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.TopicConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -26,11 +27,39 @@ public class KafkaProducerConfig {
         return TopicBuilder.name("analysis-completed-events").partitions(3).replicas(1).build();
     }
 
+    @Bean
+    public NewTopic videoInsightsTopic() {
+        return TopicBuilder.name("video-insights-events").partitions(3).replicas(1).build();
+    }
+
     @Bean
     public NewTopic statusUpdateTopic() {
         return TopicBuilder.name("topic-status-updates").partitions(3).replicas(1).build();
     }
 
+    /**
+     * Internal copy of 'video-data-processed-events' keyed by topicId. Its partition count caps
+     * how many instances can aggregate in parallel.
+     */
+    @Bean
+    public NewTopic videoDataByTopicTopic(@Value("${analysis.rekey.topic}") String name,
+                                          @Value("${analysis.rekey.partitions}") int partitions) {
+        return TopicBuilder.name(name).partitions(partitions).replicas(1).build();
+    }
+
+    /**
+     * Closed topics, compacted to one record per topicId; read from the beginning by every instance.
+     */
+    @Bean
+    public NewTopic topicClosureTopic(@Value("${analysis.rekey.closure-topic}") String name,
+                                      @Value("${analysis.deadline.closed-retention-seconds}") long retentionSeconds) {
+        return TopicBuilder.name(name).partitions(1).replicas(1)
+                .config(TopicConfig.CLEANUP_POLICY_CONFIG,
+                        TopicConfig.CLEANUP_POLICY_COMPACT + "," + TopicConfig.CLEANUP_POLICY_DELETE)
+                .config(TopicConfig.RETENTION_MS_CONFIG, String.valueOf(retentionSeconds * 1000))
+                .build();
+    }
+
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
@@ -46,8 +75,13 @@ public class KafkaProducerConfig {
         return new DefaultKafkaProducerFactory<>(configProps);
     }
 
+    /**
+     * Sends are observed: each gets a span and carries the trace context in its record headers.
+     */
     @Bean
     public KafkaTemplate<String, Object> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+        KafkaTemplate<String, Object> template = new KafkaTemplate<>(producerFactory());
+        template.setObservationEnabled(true);
+        return template;
     }
 }
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.vishal.aiyoutube.ai_analysis_service.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LocalSpanExporter makes traces usable without a collector.
+ * * KEY ARCHITECTURAL FEATURES:
+ * 1. Local Sinks: analysis.tracing.export=file appends one JSON line per finished span to
+ * analysis.tracing.file; 'log' writes the same line to the application log; 'none' drops spans.
+ * 2. Critical Paths: Every line carries traceId, spanId, parentSpanId, start and duration plus
+ * the span attributes (topic.id, model, token counts, attempt...), so the tree of a slow topic
+ * can be rebuilt with jq.
+ * 3. Off the Hot Path: Spring Boot hands exporter beans to a BatchSpanProcessor, so spans are
+ * written in batches on the processor's own thread.
+ */
+@Slf4j
+@Component
+public class LocalSpanExporter implements SpanExporter {
+
+    public enum Mode {
+        LOG,
+        FILE,
+        NONE
+    }
+
+    @Value("${analysis.tracing.export}")
+    private Mode mode;
+
+    @Value("${analysis.tracing.file}")
+    private Path file;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private BufferedWriter writer;
+
+    @PostConstruct
+    void open() throws IOException {
+        if (mode != Mode.FILE) return;
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        log.info("Writing trace spans to {}", file.toAbsolutePath());
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        if (mode == Mode.NONE) return CompletableResultCode.ofSuccess();
+
+        try {
+            for (SpanData span : spans) {
+                String line = mapper.writeValueAsString(toRecord(span));
+                if (writer != null) {
+                    writer.write(line);
+                    writer.newLine();
+                } else {
+                    log.info("span {}", line);
+                }
+            }
+            if (writer != null) writer.flush();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            log.warn("Failed to export {} spans: {}", spans.size(), e.getMessage());
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        // Every batch is flushed as it is written
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        if (writer == null) return CompletableResultCode.ofSuccess();
+        try {
+            writer.close();
+            writer = null;
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    private static Map<String, Object> toRecord(SpanData span) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("traceId", span.getTraceId());
+        record.put("spanId", span.getSpanId());
+        record.put("parentSpanId", span.getParentSpanContext().isValid() ? span.getParentSpanId() : null);
+        record.put("name", span.getName());
+        record.put("kind", span.getKind().name());
+        record.put("start", Instant.ofEpochSecond(0, span.getStartEpochNanos()).toString());
+        record.put("durationMs", (span.getEndEpochNanos() - span.getStartEpochNanos()) / 1_000_000.0);
+        record.put("status", span.getStatus().getStatusCode().name());
+
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), value));
+        record.put("attributes", attributes);
+        return record;
+    }
+}
@@ -0,0 +1,54 @@
+package com.vishal.aiyoutube.ai_analysis_service.config;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.AnalysisCompletedEvent;
+import com.vishal.aiyoutube.ai_analysis_service.dto.GrokChatRequest;
+import com.vishal.aiyoutube.ai_analysis_service.dto.GrokChatResponse;
+import com.vishal.aiyoutube.ai_analysis_service.dto.InternalAnalysisDTO;
+import com.vishal.aiyoutube.ai_analysis_service.dto.ModelTokenUsageDTO;
+import com.vishal.aiyoutube.ai_analysis_service.dto.StatusUpdateEvent;
+import com.vishal.aiyoutube.ai_analysis_service.dto.TopicClosedEvent;
+import com.vishal.aiyoutube.ai_analysis_service.dto.TopicTokenUsageDTO;
+import com.vishal.aiyoutube.ai_analysis_service.dto.VideoDataProcessedEvent;
+import com.vishal.aiyoutube.ai_analysis_service.dto.VideoInsightsEvent;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Reflection hints for Spring AOT and GraalVM native images.
+ * Jackson binds our Lombok DTOs through their generated getters/setters, and the Kafka
+ * JsonDeserializer resolves classes from type-id headers; neither is visible to the
+ * native-image static analysis, so the types are registered here explicitly.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHintsConfig.AnalysisRuntimeHints.class)
+@RegisterReflectionForBinding({
+        VideoDataProcessedEvent.class,
+        AnalysisCompletedEvent.class,
+        VideoInsightsEvent.class,
+        StatusUpdateEvent.class,
+        TopicClosedEvent.class,
+        InternalAnalysisDTO.class,
+        GrokChatRequest.class,
+        GrokChatResponse.class,
+        TopicTokenUsageDTO.class,
+        ModelTokenUsageDTO.class
+})
+public class NativeHintsConfig {
+
+    static class AnalysisRuntimeHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Targets of the cross-service type mapping are instantiated from header type ids
+            KafkaConsumerConfig.UPSTREAM_TYPE_MAPPINGS.values().forEach(type ->
+                    hints.reflection().registerType(type,
+                            MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                            MemberCategory.INVOKE_PUBLIC_METHODS,
+                            MemberCategory.DECLARED_FIELDS));
+        }
+    }
+}
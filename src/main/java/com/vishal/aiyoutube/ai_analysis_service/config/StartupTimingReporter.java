@@ -0,0 +1,62 @@
+package com.vishal.aiyoutube.ai_analysis_service.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.aot.AotDetector;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NativeDetector;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures cold-start latency as the autoscaler experiences it: time from JVM start until
+ * the context is ready and until this instance owns its first partitions.
+ * * Emits 'STARTUP-REPORT' log lines tagged with the runtime mode (jvm, aot, cds, native),
+ * which scripts/startup-report.sh collects to compare the build modes.
+ */
+@Slf4j
+@Component
+public class StartupTimingReporter implements ConsumerAwareRebalanceListener {
+
+    private final AtomicBoolean firstAssignmentReported = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        log.info("STARTUP-REPORT phase=ready mode={} elapsedMs={}", runtimeMode(), millisSinceJvmStart());
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!partitions.isEmpty() && firstAssignmentReported.compareAndSet(false, true)) {
+            log.info("STARTUP-REPORT phase=first-assignment mode={} elapsedMs={} partitions={}",
+                    runtimeMode(), millisSinceJvmStart(), partitions.size());
+        }
+    }
+
+    private static long millisSinceJvmStart() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+
+    /**
+     * Describes how this process was launched, e.g. "aot+cds".
+     */
+    private static String runtimeMode() {
+        if (NativeDetector.inNativeImage()) return "native";
+
+        List<String> features = new ArrayList<>();
+        if (AotDetector.useGeneratedArtifacts()) features.add("aot");
+        boolean cds = ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .anyMatch(arg -> arg.startsWith("-XX:SharedArchiveFile"));
+        if (cds) features.add("cds");
+
+        return features.isEmpty() ? "jvm" : String.join("+", features);
+    }
+}
@@ -0,0 +1,31 @@
+package com.vishal.aiyoutube.ai_analysis_service.config;
+
+import io.micrometer.tracing.exporter.SpanExportingPredicate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tracing setup on top of Spring Boot's Micrometer/OpenTelemetry auto-configuration.
+ * Spans are exported by the LocalSpanExporter; Kafka propagation is switched on in the
+ * Kafka producer and consumer configs.
+ */
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Spring names the span of every @Scheduled run "task <bean>.<method>".
+     */
+    private static final String SCHEDULED_TASK_PREFIX = "task ";
+
+    /**
+     * The sweeps run every second or so and would bury the topic traces. Their timers
+     * stay in /actuator/metrics; only the spans are dropped unless
+     * analysis.tracing.scheduled-tasks is set.
+     */
+    @Bean
+    public SpanExportingPredicate scheduledTaskSpanFilter(
+            @Value("${analysis.tracing.scheduled-tasks}") boolean traceScheduledTasks) {
+        return span -> traceScheduledTasks || !span.getName().startsWith(SCHEDULED_TASK_PREFIX);
+    }
+}
@@ -0,0 +1,158 @@
+package com.vishal.aiyoutube.ai_analysis_service.consumer;
+
+import com.vishal.aiyoutube.ai_analysis_service.service.ILlmScheduler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+
+/**
+ * BackpressureController keeps the listener from fetching faster than Groq can answer.
+ * * KEY ARCHITECTURAL FEATURES:
+ * 1. Load Signals: Samples the LLM calls in flight, the LLM scheduler's queue depth, the
+ * records dispatched but not finished and the heap occupancy after the last garbage collection.
+ * 2. Hysteresis: The container is paused when any signal crosses its high watermark and
+ * resumed only once every signal is back below its low watermark, so it does not flap.
+ * 3. No Rebalances: pause() keeps the consumer polling (returning no records), but only from
+ * the next poll on; the records already fetched are still dispatched. So the listener pauses
+ * right after the dispatch that reaches in-flight.high, and analysis.consumer.max-poll-records
+ * must fit into the permits left above it. The dispatcher then never blocks the poll loop,
+ * and max.poll.interval.ms is never exceeded while LLM work runs for minutes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BackpressureController {
+
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final KeyOrderedDispatcher keyOrderedDispatcher;
+    private final ILlmScheduler llmScheduler;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${analysis.backpressure.enabled}")
+    private boolean enabled;
+
+    @Value("${analysis.consumer.key-ordered.max-in-flight}")
+    private int maxInFlight;
+
+    @Value("${analysis.consumer.max-poll-records}")
+    private int maxPollRecords;
+
+    @Value("${analysis.backpressure.llm-in-flight.high}")
+    private int llmInFlightHigh;
+
+    @Value("${analysis.backpressure.llm-in-flight.low}")
+    private int llmInFlightLow;
+
+    @Value("${analysis.backpressure.in-flight.high}")
+    private int inFlightHigh;
+
+    @Value("${analysis.backpressure.in-flight.low}")
+    private int inFlightLow;
+
+    @Value("${analysis.backpressure.queue-depth.high}")
+    private int queueDepthHigh;
+
+    @Value("${analysis.backpressure.queue-depth.low}")
+    private int queueDepthLow;
+
+    /** Fraction of the max heap (0.0 to 1.0), measured after GC. */
+    @Value("${analysis.backpressure.heap.high}")
+    private double heapHigh;
+
+    @Value("${analysis.backpressure.heap.low}")
+    private double heapLow;
+
+    private volatile boolean paused;
+
+    @PostConstruct
+    void registerMetrics() {
+        if (enabled && maxPollRecords > maxInFlight - inFlightHigh) {
+            throw new RuntimeException("analysis.consumer.max-poll-records (" + maxPollRecords + ") must not exceed "
+                    + "key-ordered.max-in-flight - backpressure.in-flight.high (" + (maxInFlight - inFlightHigh)
+                    + "), or a fetched batch can block the listener on dispatch permits");
+        }
+
+        Gauge.builder("analysis.backpressure.paused", this, c -> c.paused ? 1 : 0)
+                .description("1 while the video listener is paused for backpressure")
+                .register(meterRegistry);
+        Gauge.builder("analysis.backpressure.heap-after-gc", BackpressureController::heapAfterGc)
+                .description("Heap occupancy after the last collection, as a fraction of max heap")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${analysis.backpressure.check-interval-ms}")
+    public synchronized void evaluate() {
+        if (!enabled) return;
+
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(VideoDataConsumer.LISTENER_ID);
+        if (container == null || !container.isRunning()) return;
+
+        int llmInFlight = llmScheduler.getInFlight();
+        int queueDepth = llmScheduler.getQueueDepth();
+        int inFlight = keyOrderedDispatcher.getInFlight();
+        double heap = heapAfterGc();
+
+        if (!paused && (llmInFlight >= llmInFlightHigh || queueDepth >= queueDepthHigh
+                || inFlight >= inFlightHigh || heap >= heapHigh)) {
+            container.pause();
+            paused = true;
+            log.warn("Backpressure ON: pausing video listener (llmInFlight={}, queueDepth={}, inFlight={}, heap={})",
+                    llmInFlight, queueDepth, inFlight, String.format("%.2f", heap));
+        } else if (paused && llmInFlight <= llmInFlightLow && queueDepth <= queueDepthLow
+                && inFlight <= inFlightLow && heap <= heapLow) {
+            container.resume();
+            paused = false;
+            log.info("Backpressure OFF: resuming video listener (llmInFlight={}, queueDepth={}, inFlight={}, heap={})",
+                    llmInFlight, queueDepth, inFlight, String.format("%.2f", heap));
+        }
+    }
+
+    /**
+     * Called on the listener thread after each dispatch. Pausing here, and not only in the
+     * periodic check, stops the next poll before the dispatcher can run out of permits.
+     */
+    public synchronized void afterDispatch() {
+        if (!enabled || paused) return;
+
+        int inFlight = keyOrderedDispatcher.getInFlight();
+        if (inFlight < inFlightHigh) return;
+
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(VideoDataConsumer.LISTENER_ID);
+        if (container == null || !container.isRunning()) return;
+
+        container.pause();
+        paused = true;
+        log.warn("Backpressure ON: pausing video listener at dispatch (inFlight={})", inFlight);
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Heap in use after the most recent collection of each heap pool, relative to the max heap.
+     * Unlike the instantaneous usage this ignores garbage that is about to be collected.
+     */
+    private static double heapAfterGc() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP) continue;
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            used += afterGc != null ? afterGc.getUsed() : pool.getUsage().getUsed();
+        }
+        long max = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax();
+        return max > 0 ? (double) used / max : 0.0;
+    }
+}
@@ -0,0 +1,180 @@
+package com.vishal.aiyoutube.ai_analysis_service.consumer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import com.vishal.aiyoutube.ai_analysis_service.service.IAnalysisOrchestrator;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * KeyOrderedDispatcher lifts consumption parallelism above the partition count.
+ * * KEY ARCHITECTURAL FEATURES:
+ * 1. Per-Key Ordering: Records are chained per key (the research topicId), so events of
+ * one topic still run strictly in offset order while different topics run concurrently.
+ * 2. Virtual Threads: Each record runs on its own virtual thread; the real limit is the
+ * LLM scheduler, so workers waiting for a Groq slot cost next to nothing.
+ * 3. Safe Commits: A per-partition offset tracker acknowledges only the highest offset
+ * below which every record has completed, so a crash never skips unfinished work.
+ * 4. Bounded Intake: At most analysis.consumer.key-ordered.max-in-flight records are
+ * dispatched at once; beyond that the listener thread waits for a free permit. The
+ * BackpressureController pauses the listener early enough that this wait is a last resort.
+ * 5. Rebalance Safety: Trackers of revoked partitions are dropped, so late completions
+ * never commit offsets for partitions another instance now owns.
+ * 6. Commit Holds: Topic state lives in memory, so a record is only committed once its topic
+ * is closed. The committed offset never passes the first record of an open topic, and on
+ * revoke the open topics are released; the new owner rebuilds them from that offset.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KeyOrderedDispatcher implements ConsumerAwareRebalanceListener {
+
+    private final MeterRegistry meterRegistry;
+    private final IAnalysisOrchestrator analysisOrchestrator;
+
+    @Value("${analysis.consumer.key-ordered.max-in-flight}")
+    private int maxInFlight;
+
+    private final Map<Object, CompletableFuture<Void>> tailByKey = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, OffsetTracker> trackers = new ConcurrentHashMap<>();
+
+    private Semaphore permits;
+    private ExecutorService workers;
+
+    @PostConstruct
+    void start() {
+        permits = new Semaphore(maxInFlight);
+        workers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("video-worker-", 0).factory());
+
+        Gauge.builder("analysis.consumer.in-flight", this, KeyOrderedDispatcher::getInFlight)
+                .description("Records dispatched but not yet completed")
+                .register(meterRegistry);
+        Gauge.builder("analysis.consumer.active-keys", tailByKey, Map::size)
+                .description("Topics with queued or running records")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // Listener containers are stopped before this runs; give running records a chance to finish
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Shutting down with {} records still in flight; they will be redelivered", getInFlight());
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Queues the work behind earlier records with the same key and returns immediately.
+     * @param key Ordering key; records with equal keys never overlap.
+     * @param partition Source partition of the record.
+     * @param offset Source offset of the record.
+     * @param acknowledgment The record's acknowledgment, used once all earlier offsets are done.
+     * @param work The processing to run.
+     */
+    public void dispatch(Object key, TopicPartition partition, long offset,
+                         Acknowledgment acknowledgment, Runnable work) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a dispatch permit", e);
+        }
+
+        OffsetTracker tracker = trackers.computeIfAbsent(partition, OffsetTracker::new);
+        tracker.register(offset, key, acknowledgment);
+
+        CompletableFuture<Void> next = new CompletableFuture<>();
+        CompletableFuture<Void> previous = tailByKey.put(key, next);
+        CompletableFuture<Void> ready = previous != null ? previous : CompletableFuture.completedFuture(null);
+
+        ready.whenComplete((ignored, error) -> workers.execute(() -> {
+            try {
+                // Records queued behind a revoked partition belong to the new owner now
+                if (!tracker.isRevoked()) work.run();
+            } catch (Throwable t) {
+                log.error("Record {}@{} failed: {}", partition, offset, t.getMessage(), t);
+            } finally {
+                tracker.complete(offset, this::isHeld);
+                permits.release();
+                tailByKey.remove(key, next);
+                next.complete(null);
+            }
+        }));
+    }
+
+    /**
+     * Runs the work on the calling thread (key-ordered dispatch disabled) but still commits
+     * through the partition's offset tracker, so the commit hold of open topics applies.
+     * @param key Topic key of the record, checked for commit holds.
+     */
+    public void runInline(Object key, TopicPartition partition, long offset,
+                          Acknowledgment acknowledgment, Runnable work) {
+        OffsetTracker tracker = trackers.computeIfAbsent(partition, OffsetTracker::new);
+        tracker.register(offset, key, acknowledgment);
+        try {
+            work.run();
+        } catch (Throwable t) {
+            log.error("Record {}@{} failed: {}", partition, offset, t.getMessage(), t);
+        } finally {
+            tracker.complete(offset, this::isHeld);
+        }
+    }
+
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    /**
+     * Commits records whose topics were closed since they completed (finalized at quorum,
+     * failed or expired by the orchestrator's sweeps).
+     */
+    @Scheduled(fixedDelayString = "${analysis.consumer.key-ordered.commit-check-ms}")
+    public void advanceCommits() {
+        trackers.values().forEach(tracker -> tracker.advance(this::isHeld));
+    }
+
+    /**
+     * A finished record is held back while its topic still has state in the orchestrator.
+     */
+    private boolean isHeld(Object key) {
+        return key instanceof UUID topicId && analysisOrchestrator.isTopicOpen(topicId);
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        partitions.forEach(this::dropTracker);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        partitions.forEach(this::dropTracker);
+    }
+
+    private void dropTracker(TopicPartition partition) {
+        OffsetTracker tracker = trackers.remove(partition);
+        if (tracker != null) {
+            Set<Object> uncommittedKeys = tracker.revoke();
+            if (!uncommittedKeys.isEmpty()) {
+                log.info("Partition {} revoked with {} uncommitted topics; the new owner will reprocess them",
+                        partition, uncommittedKeys.size());
+            }
+            // Half-built topics move with the partition; keeping them here would publish twice
+            uncommittedKeys.forEach(key -> {
+                if (key instanceof UUID topicId) analysisOrchestrator.releaseTopic(topicId);
+            });
+        }
+    }
+}
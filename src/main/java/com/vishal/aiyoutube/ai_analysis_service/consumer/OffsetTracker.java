@@ -0,0 +1,81 @@
+package com.vishal.aiyoutube.ai_analysis_service.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Tracks dispatched offsets of one partition and acknowledges the longest prefix of
+ * records that are finished and not held. Used by the KeyOrderedDispatcher.
+ */
+@Slf4j
+final class OffsetTracker {
+
+    private final TopicPartition partition;
+    private final TreeMap<Long, Entry> pending = new TreeMap<>();
+    private volatile boolean revoked;
+
+    OffsetTracker(TopicPartition partition) {
+        this.partition = partition;
+    }
+
+    synchronized void register(long offset, Object key, Acknowledgment acknowledgment) {
+        pending.put(offset, new Entry(key, acknowledgment));
+    }
+
+    void complete(long offset, Predicate<Object> held) {
+        synchronized (this) {
+            Entry entry = pending.get(offset);
+            if (entry != null) entry.completed = true;
+        }
+        advance(held);
+    }
+
+    void advance(Predicate<Object> held) {
+        Acknowledgment toAck = null;
+        synchronized (this) {
+            if (revoked) return;
+            while (!pending.isEmpty()) {
+                Entry head = pending.firstEntry().getValue();
+                if (!head.completed || held.test(head.key)) break;
+                toAck = pending.pollFirstEntry().getValue().acknowledgment;
+            }
+        }
+        // Commits offset + 1 of the last record in the released prefix (queued to the consumer thread)
+        if (toAck != null) {
+            toAck.acknowledge();
+        }
+    }
+
+    boolean isRevoked() {
+        return revoked;
+    }
+
+    /**
+     * @return Keys of every record that was not committed, finished or not.
+     */
+    synchronized Set<Object> revoke() {
+        revoked = true;
+        Set<Object> keys = new HashSet<>();
+        pending.values().forEach(entry -> keys.add(entry.key));
+        pending.clear();
+        log.debug("Dropped offset tracker for {}", partition);
+        return keys;
+    }
+
+    private static final class Entry {
+        private final Object key;
+        private final Acknowledgment acknowledgment;
+        private boolean completed;
+
+        private Entry(Object key, Acknowledgment acknowledgment) {
+            this.key = key;
+            this.acknowledgment = acknowledgment;
+        }
+    }
+}
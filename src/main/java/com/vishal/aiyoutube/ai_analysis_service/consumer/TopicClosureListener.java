@@ -0,0 +1,121 @@
+package com.vishal.aiyoutube.ai_analysis_service.consumer;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.TopicClosedEvent;
+import com.vishal.aiyoutube.ai_analysis_service.service.ITopicDeadlineRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Mirrors the closure topic into the local TopicDeadlineRegistry.
+ * * KEY ARCHITECTURAL FEATURES:
+ * 1. Full Read, No Group: Every instance reads the whole (compacted) topic from offset 0 by
+ * assignment, without a group.id, so nothing is committed and no consumer group is left
+ * behind on the broker when an instance stops.
+ * 2. Catch-Up Gate: The end offsets are recorded when the consumer first runs; the video
+ * listener is started only once they are reached. Replayed events of topics the previous
+ * owner already reported are then dropped instead of producing a second report.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TopicClosureListener {
+
+    public static final String LISTENER_ID = "topic-closure-listener";
+
+    private static final Duration END_OFFSETS_TIMEOUT = Duration.ofSeconds(2);
+
+    private final ITopicDeadlineRegistry deadlineRegistry;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+
+    /** End offsets of the closure topic when this instance started; only touched on the consumer thread. */
+    private Map<TopicPartition, Long> startupEndOffsets;
+
+    private volatile boolean caughtUp;
+
+    @KafkaListener(
+            id = LISTENER_ID,
+            idIsGroup = false,
+            topicPartitions = @org.springframework.kafka.annotation.TopicPartition(
+                    topic = "${analysis.rekey.closure-topic}",
+                    partitionOffsets = @PartitionOffset(partition = "0", initialOffset = "0")),
+            containerFactory = "topicClosureListenerContainerFactory"
+    )
+    public void onTopicClosed(@Payload(required = false) TopicClosedEvent event,
+                             @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+                             @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+                             @Header(KafkaHeaders.OFFSET) long offset,
+                             Consumer<?, ?> consumer) {
+        if (event != null && event.getTopicId() != null) {
+            deadlineRegistry.markClosed(event.getTopicId(), Instant.ofEpochMilli(event.getClosedAtEpochMs()));
+            log.debug("Topic {} is closed cluster-wide", event.getTopicId());
+        }
+
+        if (!caughtUp) {
+            Map<TopicPartition, Long> endOffsets = endOffsets(consumer);
+            Long end = endOffsets != null ? endOffsets.get(new TopicPartition(topic, partition)) : null;
+            if (end != null && offset + 1 >= end) checkCaughtUp(consumer);
+        }
+    }
+
+    /**
+     * Idle events cover an empty topic and a tail removed by compaction, where no record
+     * at the recorded end offset is ever delivered. Published on the consumer thread.
+     */
+    @EventListener(condition = "event.listenerId.startsWith('" + LISTENER_ID + "')")
+    public void onIdle(ListenerContainerIdleEvent event) {
+        if (!caughtUp) checkCaughtUp(event.getConsumer());
+    }
+
+    /**
+     * @return The recorded end offsets, or null while the broker cannot be reached (retried on the next call).
+     */
+    private Map<TopicPartition, Long> endOffsets(Consumer<?, ?> consumer) {
+        if (startupEndOffsets == null) {
+            try {
+                // Short timeout: a blocked consumer thread would also hold up shutdown
+                startupEndOffsets = consumer.endOffsets(consumer.assignment(), END_OFFSETS_TIMEOUT);
+                log.info("Reading closure topic up to {} before starting the video listener", startupEndOffsets);
+            } catch (TimeoutException e) {
+                log.debug("Closure topic end offsets not available yet: {}", e.getMessage());
+            }
+        }
+        return startupEndOffsets;
+    }
+
+    private void checkCaughtUp(Consumer<?, ?> consumer) {
+        Map<TopicPartition, Long> endOffsets = endOffsets(consumer);
+        if (endOffsets == null) return;
+
+        try {
+            boolean reached = endOffsets.entrySet().stream()
+                    .allMatch(end -> consumer.position(end.getKey(), END_OFFSETS_TIMEOUT) >= end.getValue());
+            if (!reached) return;
+        } catch (TimeoutException e) {
+            return;
+        }
+
+        caughtUp = true;
+        MessageListenerContainer videoListener = listenerRegistry.getListenerContainer(VideoDataConsumer.LISTENER_ID);
+        if (videoListener != null && !videoListener.isRunning()) {
+            log.info("Closure topic read; starting the video listener");
+            videoListener.start();
+        }
+    }
+}
@@ -1,52 +1,124 @@
 package com.vishal.aiyoutube.ai_analysis_service.consumer;
 
 import com.vishal.aiyoutube.ai_analysis_service.dto.VideoDataProcessedEvent;
+import com.vishal.aiyoutube.ai_analysis_service.dto.VideoEventHeaders;
 import com.vishal.aiyoutube.ai_analysis_service.service.AnalysisOrchestrator;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
 
 /**
- * Entry point for Service 3 (AI Analysis Service).
- * This consumer acts as the 'Gateway' that receives processed video data from
- * the YouTube Processing Service via Kafka.
+ * Entry point of the aggregation in Service 3 (AI Analysis Service).
+ * This consumer receives the processed video data from the YouTube Processing Service,
+ * after the VideoDataRekeyer moved it onto the internal topic keyed by topicId.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class VideoDataConsumer {
 
+    /** Listener container id, used to look the container up in the KafkaListenerEndpointRegistry. */
+    public static final String LISTENER_ID = "video-data-consumer";
+
     private final AnalysisOrchestrator analysisOrchestrator;
+    private final KeyOrderedDispatcher keyOrderedDispatcher;
+    private final BackpressureController backpressureController;
+    private final ObservationRegistry observationRegistry;
+
+    @Value("${analysis.consumer.key-ordered.enabled}")
+    private boolean keyOrdered;
 
     /**
      * Consumes the processed video data and transcripts.
-     * * @KafkaListener: Subscribes to the 'video-data-processed-events' topic.
+     * * @KafkaListener: Subscribes to the internal analysis.rekey.topic, where all events of a
+     * topicId share one partition, so each topic is aggregated by exactly one instance.
      * * KEY ARCHITECTURAL FEATURES:
      * 1. Streaming Ingestion: Processes one video at a time as they arrive,
      * facilitating real-time "On-the-Spot" synthesis.
      * 2. Deserialization: Uses the custom 'kafkaListenerContainerFactory' to
      * resolve cross-service package mapping issues.
+     * 3. Header Metadata: The optional tenant header feeds the LLM scheduler's tenant weights;
+     * the optional deadline header sets the topic's time budget.
+     * 4. Key-Ordered Parallelism: Unless disabled, records are handed to the KeyOrderedDispatcher,
+     * which serializes per topicId only and acknowledges once all earlier offsets are done and
+     * their topics are closed, so a rebalance hands unfinished topics over intact. When disabled,
+     * records run on the listener thread but are committed under the same rules. The listener
+     * is paused as soon as the records in flight reach the backpressure watermark.
+     * 5. Tracing: The container continues the producer's trace from the record headers; the
+     * 'analysis.video' span below it lasts until the video is processed on its worker, so the
+     * wait behind earlier videos of the topic is part of the topic's critical path.
      */
     @KafkaListener(
-            topics = "video-data-processed-events",
-            groupId = "ai-analysis-group",
+            id = LISTENER_ID,
+            // Started by the TopicClosureListener once the closure topic has been read
+            autoStartup = "false",
+            topics = "${analysis.rekey.topic}",
+            groupId = "ai-analysis-aggregator",
             containerFactory = "kafkaListenerContainerFactory"
     )
-    public void consumeVideoData(VideoDataProcessedEvent event) {
+    public void consumeVideoData(
+            @Payload VideoDataProcessedEvent event,
+            @Header(name = VideoEventHeaders.TENANT_ID, required = false) String tenantId,
+            @Header(name = VideoEventHeaders.TOPIC_DEADLINE, required = false) String topicDeadline,
+            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+            @Header(KafkaHeaders.OFFSET) long offset,
+            @Header(KafkaHeaders.RECEIVED_TIMESTAMP) long timestamp,
+            Acknowledgment acknowledgment) {
         // Log the arrival of new intelligence data
         log.info("Received VideoDataProcessedEvent for Topic ID: {} (Video {} of {})",
                 event.getTopicId(),
                 event.getCurrentCount(),
                 event.getTotalVideos());
 
-        try {
+        VideoEventHeaders headers = VideoEventHeaders.builder()
+                .tenantId(tenantId)
+                .topicDeadline(VideoEventHeaders.parseDeadline(topicDeadline))
+                .build();
+
+        Observation observation = Observation.createNotStarted("analysis.video", observationRegistry)
+                .contextualName("consume video data")
+                .lowCardinalityKeyValue("dispatch", keyOrdered ? "key-ordered" : "inline")
+                .highCardinalityKeyValue("topic.id", String.valueOf(event.getTopicId()))
+                .highCardinalityKeyValue("video.id", event.getVideoData() != null
+                        ? String.valueOf(event.getVideoData().getVideoId()) : "none")
+                // Time the record spent in Kafka before this poll (consumer lag)
+                .highCardinalityKeyValue("record.age.ms", String.valueOf(System.currentTimeMillis() - timestamp))
+                .start();
+
+        // Events without a topicId stay ordered within their partition
+        Object orderingKey = event.getTopicId() != null ? event.getTopicId() : "partition-" + partition;
+        TopicPartition topicPartition = new TopicPartition(topic, partition);
+
+        if (!keyOrdered) {
+            // Still acknowledged through the offset tracker, so open topics hold the commit
+            keyOrderedDispatcher.runInline(orderingKey, topicPartition, offset, acknowledgment,
+                    () -> process(event, headers, observation));
+            return;
+        }
+
+        keyOrderedDispatcher.dispatch(orderingKey, topicPartition, offset, acknowledgment,
+                () -> process(event, headers, observation));
+        backpressureController.afterDispatch();
+    }
+
+    private void process(VideoDataProcessedEvent event, VideoEventHeaders headers, Observation observation) {
+        try (Observation.Scope ignored = observation.openScope()) {
             /**
              * Trigger the AI Orchestration logic.
              * This hand-off begins the multi-stage process of partial analysis,
              * aggregation, and final synthesis of the consensus report.
              */
-            analysisOrchestrator.processAnalysis(event);
+            analysisOrchestrator.processAnalysis(event, headers);
 
             log.info("Successfully initiated AI Analysis for Topic ID: {}", event.getTopicId());
         } catch (IllegalArgumentException e) {
@@ -56,6 +128,7 @@ public class VideoDataConsumer {
              * critical fields like Topic ID.
              */
             log.error("Validation Error for Topic ID {}: {}", event.getTopicId(), e.getMessage());
+            observation.error(e);
         } catch (RuntimeException e) {
             /**
              * System Exception:
@@ -64,6 +137,7 @@ public class VideoDataConsumer {
              */
             log.error("Runtime error during AI Analysis for Topic ID {}: {}",
                     event.getTopicId(), e.getMessage());
+            observation.error(e);
         } catch (Exception e) {
             /**
              * Global Exception Safety Net:
@@ -72,6 +146,9 @@ public class VideoDataConsumer {
              */
             log.error("CRITICAL: Failed to initiate AI Analysis for Topic ID: {}. Error: {}",
                     event.getTopicId(), e.getMessage(), e);
+            observation.error(e);
+        } finally {
+            observation.stop();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.vishal.aiyoutube.ai_analysis_service.consumer;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.VideoDataProcessedEvent;
+import com.vishal.aiyoutube.ai_analysis_service.dto.VideoEventHeaders;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.micrometer.KafkaRecordReceiverContext;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * VideoDataRekeyer is the repartition stage in front of the aggregation.
+ * * KEY ARCHITECTURAL FEATURES:
+ * 1. topicId Keying: Upstream keys are not guaranteed to be the topicId, so every event is
+ * re-published to analysis.rekey.topic keyed by topicId. All videos of one topic then land
+ * on one partition, and so on one instance, no matter how many instances run.
+ * 2. Cheap Stage: No analysis happens here, so the stage keeps up with the upstream topic
+ * while the expensive work scales with the internal topic's partitions.
+ * 3. At-Least-Once Hand-Over: A batch is committed only after the broker acknowledged every
+ * forwarded record. A crash in between re-sends the batch; the orchestrator drops the
+ * duplicate videos.
+ * 4. Header Metadata: The tenant and deadline headers travel with the event; type-id headers
+ * are written fresh by our own serializer.
+ * 5. Trace Continuity: Batch listeners are not observed by the container, so each record gets
+ * its own 'analysis.rekey' span continuing the upstream trace; the forwarded record carries
+ * that trace on to the aggregator.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VideoDataRekeyer {
+
+    public static final String LISTENER_ID = "video-data-rekeyer";
+
+    private static final List<String> FORWARDED_HEADERS =
+            List.of(VideoEventHeaders.TENANT_ID, VideoEventHeaders.TOPIC_DEADLINE);
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObservationRegistry observationRegistry;
+
+    @Value("${analysis.rekey.topic}")
+    private String rekeyTopic;
+
+    @Value("${analysis.rekey.send-timeout-ms}")
+    private long sendTimeoutMs;
+
+    @KafkaListener(
+            id = LISTENER_ID,
+            topics = "video-data-processed-events",
+            groupId = "ai-analysis-group",
+            containerFactory = "rekeyListenerContainerFactory"
+    )
+    public void rekey(List<ConsumerRecord<String, VideoDataProcessedEvent>> records) {
+        List<CompletableFuture<?>> sends = new ArrayList<>(records.size());
+
+        for (ConsumerRecord<String, VideoDataProcessedEvent> record : records) {
+            VideoDataProcessedEvent event = record.value();
+            // Unreadable payloads arrive as null from the ErrorHandlingDeserializer
+            if (event == null || event.getTopicId() == null) {
+                log.warn("Skipping record {}-{}@{}: no readable topicId",
+                        record.topic(), record.partition(), record.offset());
+                continue;
+            }
+
+            ProducerRecord<String, Object> forward =
+                    new ProducerRecord<>(rekeyTopic, event.getTopicId().toString(), event);
+            for (String name : FORWARDED_HEADERS) {
+                Header header = record.headers().lastHeader(name);
+                if (header != null) forward.headers().add(name, header.value());
+            }
+            // The receiver context reads the upstream traceparent; the template's send span becomes its child
+            Observation.createNotStarted("analysis.rekey",
+                            () -> new KafkaRecordReceiverContext(record, LISTENER_ID, () -> null), observationRegistry)
+                    .contextualName(record.topic() + " rekey")
+                    .highCardinalityKeyValue("topic.id", event.getTopicId().toString())
+                    .observe(() -> {
+                        sends.add(kafkaTemplate.send(forward));
+                    });
+        }
+
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while forwarding to " + rekeyTopic, e);
+        } catch (ExecutionException | TimeoutException e) {
+            // Not committed: the container's error handler redelivers the batch
+            throw new RuntimeException("Failed to forward " + sends.size() + " records to " + rekeyTopic, e);
+        }
+
+        log.debug("Re-keyed {} of {} records to {}", sends.size(), records.size(), rekeyTopic);
+    }
+}
@@ -0,0 +1,51 @@
+package com.vishal.aiyoutube.ai_analysis_service.controller;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.ModelTokenUsageDTO;
+import com.vishal.aiyoutube.ai_analysis_service.dto.TopicTokenUsageDTO;
+import com.vishal.aiyoutube.ai_analysis_service.service.ITokenUsageLedger;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Read-only view of the token ledger, documented through springdoc (/swagger-ui.html).
+ * Lets operators spot runaway topics and see which model the quota goes to.
+ */
+@RestController
+@RequestMapping("/api/v1/token-usage")
+@RequiredArgsConstructor
+@Tag(name = "Token Usage", description = "LLM token consumption per topic and per model")
+public class TokenUsageController {
+
+    private static final int MAX_LIMIT = 500;
+
+    private final ITokenUsageLedger tokenLedger;
+
+    @GetMapping("/topics")
+    @Operation(summary = "Topics with the highest token consumption, including their budget mode")
+    public List<TopicTokenUsageDTO> topTopics(@RequestParam(defaultValue = "20") int limit) {
+        return tokenLedger.topTopics(Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+
+    @GetMapping("/topics/{topicId}")
+    @Operation(summary = "Token consumption and budget mode of one topic")
+    public ResponseEntity<TopicTokenUsageDTO> topic(@PathVariable UUID topicId) {
+        TopicTokenUsageDTO usage = tokenLedger.topicUsage(topicId);
+        return usage != null ? ResponseEntity.ok(usage) : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/models")
+    @Operation(summary = "Token consumption per model since startup")
+    public List<ModelTokenUsageDTO> models() {
+        return tokenLedger.modelUsage();
+    }
+}
@@ -50,9 +50,38 @@ public class AnalysisCompletedEvent {
     /**
      * List of timestamped evidence from the source videos.
      * This powers the 'Source Intelligence' cards on the Nexus AI dashboard.
+     * Null when progressive publishing is enabled: the segments were already sent per video
+     * in VideoInsightsEvents and are referenced through sourceVideoIds.
      */
     private List<VideoSegmentDTO> segments;
 
+    /**
+     * Videos whose analysis is included in this revision; each matches the videoId of a
+     * VideoInsightsEvent published earlier for this topic.
+     */
+    private List<String> sourceVideoIds;
+
+    /**
+     * Version of the report for this topic, starting at 1. A report finalized at quorum
+     * may be followed by revisions that fold in late videos; the highest revision wins.
+     */
+    private Integer revision;
+
+    /**
+     * Number of videos whose analysis is included in this revision.
+     */
+    private Integer analyzedVideos;
+
+    /**
+     * Number of videos the topic was expected to have.
+     */
+    private Integer totalVideos;
+
+    /**
+     * True when no further revision will follow for this topic.
+     */
+    private Boolean complete;
+
     /**
      * Inner static class representing specific evidence extracted from a single video.
      */
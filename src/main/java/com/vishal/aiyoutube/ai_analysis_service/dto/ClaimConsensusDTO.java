@@ -0,0 +1,59 @@
+package com.vishal.aiyoutube.ai_analysis_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * Result of the local claim clustering step.
+ * Groups near-duplicate claims from independent video sources and measures how
+ * many sources back each one, so consensus no longer has to be estimated by the LLM.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ClaimConsensusDTO {
+
+    /**
+     * Number of sources (partial analyses) that contributed at least one claim.
+     */
+    private int sourceCount;
+
+    /**
+     * Total number of claims across all sources, before deduplication.
+     */
+    private int totalClaims;
+
+    /**
+     * Percentage (0-100) of all claims that are corroborated by at least one other source.
+     * Deterministic for a given set of partials.
+     */
+    private Double consensusPercentage;
+
+    /**
+     * Deduplicated clusters, ordered by support (most corroborated first).
+     */
+    private List<ClaimCluster> clusters;
+
+    /**
+     * A group of claims that state (nearly) the same thing.
+     */
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ClaimCluster {
+
+        /** The member claim that best represents the cluster (highest similarity to the others). */
+        private String representative;
+
+        /** Number of distinct sources that made this claim. */
+        private int support;
+
+        /** Number of raw claims merged into this cluster. */
+        private int size;
+    }
+}
@@ -1,5 +1,7 @@
 package com.vishal.aiyoutube.ai_analysis_service.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Builder;
 import lombok.Data;
 
@@ -9,9 +11,12 @@ import java.util.List;
  * Data Transfer Object for sending prompts to the AI provider.
  * Follows the industry-standard Chat Completions API format, making your
  * system compatible with modern LLM providers like Groq, xAI, and OpenAI.
+ * GrokRequestEncoder writes this contract by hand (messages are streamed in), and the
+ * optional generation controls below are only sent when set.
  */
 @Data
 @Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class GrokChatRequest {
 
     /**
@@ -33,6 +38,44 @@ public class GrokChatRequest {
      */
     private Double temperature;
 
+    /**
+     * Output format constraint; {"type":"json_object"} makes the model emit one valid JSON object.
+     */
+    @JsonProperty("response_format")
+    private ResponseFormat responseFormat;
+
+    /**
+     * Upper bound of generated tokens. Derived per call from the expected JSON shape,
+     * since generation time grows with the output length.
+     */
+    @JsonProperty("max_tokens")
+    private Integer maxTokens;
+
+    /**
+     * Optional seed for best-effort reproducible sampling.
+     */
+    private Long seed;
+
+    /**
+     * Sequences at which generation stops (up to 4). Groq rejects them in JSON mode.
+     */
+    private List<String> stop;
+
+    /**
+     * The response_format object of the Chat Completions API.
+     */
+    @Data
+    @Builder
+    public static class ResponseFormat {
+
+        public static final String JSON_OBJECT = "json_object";
+
+        /**
+         * 'json_object' for JSON mode, 'text' for free-form output.
+         */
+        private String type;
+    }
+
     /**
      * Inner class representing a single message in the chat context.
      */
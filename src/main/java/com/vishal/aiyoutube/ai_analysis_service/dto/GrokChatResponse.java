@@ -31,6 +31,11 @@ public class GrokChatResponse {
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class Choice {
         private Message message;
+
+        /**
+         * Why generation ended: 'stop' for a complete answer, 'length' when max_tokens cut it off.
+         */
+        private String finish_reason;
     }
 
     @Data
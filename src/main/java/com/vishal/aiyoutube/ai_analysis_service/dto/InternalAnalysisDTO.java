@@ -45,7 +45,7 @@ public class InternalAnalysisDTO {
         /** The unique identifier of the source YouTube video. */
         private String videoId;
 
-        /** The exact time (e.g., "05:12") where the insight occurs. */
+        /** Not requested from the model anymore; offsets are resolved from the transcript (kept for lenient parsing). */
         private String timestamp;
 
         /** Why the AI thinks this specific clip is important. */
@@ -0,0 +1,49 @@
+package com.vishal.aiyoutube.ai_analysis_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * Output of the JSON extractor: the JSON text handed to Jackson and the
+ * repairs that were needed to make the raw LLM output parseable.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class JsonExtractionResult {
+
+    /**
+     * The extracted (and possibly repaired) JSON object.
+     */
+    private String json;
+
+    /**
+     * Repairs applied, in the order they were made; empty for clean output.
+     */
+    private List<Repair> repairs;
+
+    public enum Repair {
+        /** Markdown code fences (```json) around the object were dropped. */
+        CODE_FENCE_STRIPPED,
+        /** Prose or a second object after the first complete object was dropped. */
+        TRAILING_TEXT_DROPPED,
+        /** A comma directly before '}' or ']' was removed. */
+        TRAILING_COMMA_REMOVED,
+        /** A raw newline, tab or other control character inside a string was escaped. */
+        CONTROL_CHARACTER_ESCAPED,
+        /** A closing bracket that did not match was preceded by the missing closers. */
+        MISMATCHED_BRACKET_FIXED,
+        /** The output ended inside a string, which was closed. */
+        TRUNCATED_STRING_CLOSED,
+        /** The output ended before every object/array was closed; the missing closers were appended. */
+        TRUNCATED_BRACKETS_CLOSED
+    }
+
+    public boolean isRepaired() {
+        return repairs != null && !repairs.isEmpty();
+    }
+}
@@ -0,0 +1,66 @@
+package com.vishal.aiyoutube.ai_analysis_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.UUID;
+
+/**
+ * Describes who an LLM call is made for.
+ * Travels with every Groq request so the scheduler can prioritize it
+ * (synthesis first, nearly finished topics next, weighted by tenant).
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LlmCallContext {
+
+    /**
+     * The research topic the call belongs to.
+     */
+    private UUID topicId;
+
+    /**
+     * Optional tenant of the topic, used for weighted fair sharing.
+     */
+    private String tenantId;
+
+    /**
+     * Which stage of the pipeline issued the call.
+     */
+    private CallKind kind;
+
+    /**
+     * Number of videos of the topic seen so far (including this one).
+     */
+    private int currentCount;
+
+    /**
+     * Number of videos expected for the topic.
+     */
+    private int totalVideos;
+
+    /**
+     * Model to call instead of the configured default (e.g., the cheaper model of a topic
+     * close to its token budget); null for the default.
+     */
+    private String model;
+
+    public enum CallKind {
+        /** Per-video analysis (Stage 1). */
+        ANALYSIS,
+        /** Multi-source global synthesis (Stage 2); the last step before a report is published. */
+        SYNTHESIS
+    }
+
+    /**
+     * Fraction of the topic that is done (0.0 to 1.0). Synthesis calls always count as complete.
+     */
+    public double progress() {
+        if (kind == CallKind.SYNTHESIS) return 1.0;
+        if (totalVideos <= 0) return 0.0;
+        return Math.min(1.0, (double) currentCount / totalVideos);
+    }
+}
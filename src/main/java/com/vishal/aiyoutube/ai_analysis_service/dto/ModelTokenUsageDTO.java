@@ -0,0 +1,22 @@
+package com.vishal.aiyoutube.ai_analysis_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Token consumption per model since the service started.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ModelTokenUsageDTO {
+
+    private String model;
+    private long promptTokens;
+    private long completionTokens;
+    private long totalTokens;
+    private long calls;
+}
@@ -0,0 +1,16 @@
+package com.vishal.aiyoutube.ai_analysis_service.dto;
+
+/**
+ * How much LLM work a topic may still spend, derived from its share of the token budget.
+ * Each mode includes the savings of the modes before it.
+ */
+public enum TokenBudgetMode {
+    /** Well within budget: full transcripts, default model, LLM synthesis. */
+    FULL,
+    /** Transcripts are cut to a shorter window before analysis. */
+    SHORT_TRANSCRIPT,
+    /** Calls go to the smaller, cheaper model. */
+    SMALL_MODEL,
+    /** The final report is assembled locally from the per-video results, without a synthesis call. */
+    LOCAL_SYNTHESIS
+}
@@ -0,0 +1,28 @@
+package com.vishal.aiyoutube.ai_analysis_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.UUID;
+
+/**
+ * Internal event shared between instances of this service when a topic is closed
+ * (finalized, failed or expired).
+ * Published to the compacted closure topic so the instance that takes over a topicId
+ * partition after a rebalance drops replayed events of topics that are already done.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TopicClosedEvent {
+
+    /**
+     * The research topic that will not accept further videos.
+     */
+    private UUID topicId;
+
+    /**
+     * When the topic was closed, in epoch milliseconds.
+     */
+    private long closedAtEpochMs;
+}
@@ -0,0 +1,39 @@
+package com.vishal.aiyoutube.ai_analysis_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.UUID;
+
+/**
+ * Token consumption of one research topic, as exposed by the token usage endpoint.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TopicTokenUsageDTO {
+
+    private UUID topicId;
+
+    /** Tokens sent to the model (prompts and transcripts). */
+    private long promptTokens;
+
+    /** Tokens generated by the model. */
+    private long completionTokens;
+
+    private long totalTokens;
+
+    /** Number of LLM calls that reported usage. */
+    private long calls;
+
+    /** Configured per-topic budget in total tokens; 0 when budgets are disabled. */
+    private long budget;
+
+    /** Share of the budget already spent (0.0 to 1.0+); 0 when budgets are disabled. */
+    private double budgetUsed;
+
+    /** The degraded mode the topic's next calls will run in. */
+    private TokenBudgetMode mode;
+}
@@ -0,0 +1,53 @@
+package com.vishal.aiyoutube.ai_analysis_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Optional metadata carried in Kafka headers next to a VideoDataProcessedEvent.
+ * Kept out of the event payload so the cross-service contract stays unchanged.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class VideoEventHeaders {
+
+    /** Header names as written by upstream producers. */
+    public static final String TENANT_ID = "x-tenant-id";
+    public static final String TOPIC_DEADLINE = "x-topic-deadline";
+
+    /**
+     * Tenant owning the topic; null when the producer does not send one.
+     */
+    private String tenantId;
+
+    /**
+     * Point in time by which the topic's report must be published; null to use the service default.
+     */
+    private Instant topicDeadline;
+
+    public static VideoEventHeaders empty() {
+        return new VideoEventHeaders();
+    }
+
+    /**
+     * Parses the deadline header: epoch milliseconds or an ISO-8601 instant.
+     * @return The deadline, or null when the header is absent or malformed.
+     */
+    public static Instant parseDeadline(String value) {
+        if (value == null || value.isBlank()) return null;
+        try {
+            String trimmed = value.trim();
+            return trimmed.chars().allMatch(Character::isDigit)
+                    ? Instant.ofEpochMilli(Long.parseLong(trimmed))
+                    : Instant.parse(trimmed);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
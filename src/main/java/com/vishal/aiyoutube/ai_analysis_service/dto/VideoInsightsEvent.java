@@ -0,0 +1,66 @@
+package com.vishal.aiyoutube.ai_analysis_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Data Transfer Object carrying the insights of a single analyzed video.
+ * Published to the 'video-insights-events' Kafka topic as soon as the video's highlights
+ * are resolved, so the dashboard can show evidence long before the final report exists.
+ * The AnalysisCompletedEvent then only references these events by videoId.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class VideoInsightsEvent {
+
+    /**
+     * Unique identifier linking the insights back to the original user query.
+     */
+    private UUID topicId;
+
+    /**
+     * YouTube unique identifier of the analyzed video; the key used by the final report's references.
+     */
+    private String videoId;
+
+    /**
+     * The title of the source video for UI display.
+     */
+    private String videoTitle;
+
+    /**
+     * Direct link to the source video for user redirection.
+     */
+    private String videoUrl;
+
+    /**
+     * The AI's summary of this video alone.
+     */
+    private String summary;
+
+    /**
+     * Tone of this video (0.0 = Very Negative, 1.0 = Very Positive).
+     */
+    private Double sentiment;
+
+    /**
+     * Timestamped evidence extracted from this video.
+     */
+    private List<AnalysisCompletedEvent.VideoSegmentDTO> segments;
+
+    /**
+     * Number of videos of the topic analyzed so far, this one included.
+     */
+    private Integer analyzedVideos;
+
+    /**
+     * Number of videos the topic is expected to have.
+     */
+    private Integer totalVideos;
+}
@@ -2,12 +2,17 @@ package com.vishal.aiyoutube.ai_analysis_service.producer;
 
 import com.vishal.aiyoutube.ai_analysis_service.dto.AnalysisCompletedEvent;
 import com.vishal.aiyoutube.ai_analysis_service.dto.StatusUpdateEvent;
+import com.vishal.aiyoutube.ai_analysis_service.dto.TopicClosedEvent;
+import com.vishal.aiyoutube.ai_analysis_service.dto.VideoInsightsEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -25,10 +30,16 @@ public class AnalysisResultProducer {
      * Topic names must match the configuration in Service 1 and Service 2.
      * ANALYSIS_TOPIC: Carries the final synthesized AI report.
      * STATUS_TOPIC: Carries real-time state changes (e.g., ANALYZING).
+     * INSIGHTS_TOPIC: Carries the insights of each video as soon as it is analyzed.
      */
     private static final String ANALYSIS_TOPIC = "analysis-completed-events";
+    private static final String INSIGHTS_TOPIC = "video-insights-events";
     private static final String STATUS_TOPIC = "topic-status-updates";
 
+    /** Internal, compacted topic that tells every instance of this service which topics are done. */
+    @Value("${analysis.rekey.closure-topic}")
+    private String closureTopic;
+
     /**
      * Publishes the final AI-generated insights.
      * This is the terminal event of the entire backend pipeline.
@@ -58,6 +69,25 @@ public class AnalysisResultProducer {
         });
     }
 
+    /**
+     * Publishes the insights of one analyzed video ahead of the final report.
+     * Keyed by Topic ID like the final report, so a topic's insights stay in order.
+     * * @param event The video's summary and timestamped segments.
+     */
+    public void sendVideoInsights(VideoInsightsEvent event) {
+        log.info("Publishing insights of Video {} for Topic ID: {}", event.getVideoId(), event.getTopicId());
+
+        CompletableFuture<SendResult<String, Object>> future =
+                kafkaTemplate.send(INSIGHTS_TOPIC, event.getTopicId().toString(), event);
+
+        future.whenComplete((result, ex) -> {
+            if (ex != null) {
+                log.error("Failed to publish insights of Video {} for Topic ID: {}: {}",
+                        event.getVideoId(), event.getTopicId(), ex.getMessage());
+            }
+        });
+    }
+
     /**
      * Publishes a status update to keep the Topic Management Service in sync.
      * This powers the real-time progress bar on the Nexus AI dashboard.
@@ -76,4 +106,21 @@ public class AnalysisResultProducer {
             }
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * Announces to the other instances of this service that a topic is closed.
+     * After a rebalance, the new owner of the topic's partition replays its events from the
+     * committed offset and uses these records to skip topics that were already reported.
+     * * @param topicId The finalized, failed or expired topic.
+     */
+    public void sendTopicClosed(UUID topicId) {
+        CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(closureTopic, topicId.toString(),
+                new TopicClosedEvent(topicId, Instant.now().toEpochMilli()));
+
+        future.whenComplete((result, ex) -> {
+            if (ex != null) {
+                log.error("Failed to publish closure of Topic ID: {}: {}", topicId, ex.getMessage());
+            }
+        });
+    }
+}
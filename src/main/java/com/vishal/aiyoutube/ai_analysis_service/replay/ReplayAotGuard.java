@@ -0,0 +1,33 @@
+package com.vishal.aiyoutube.ai_analysis_service.replay;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fails fast when the 'replay' profile is requested from an AOT or native build.
+ * Those builds fix the bean set at build time, which ran without the profile, so the
+ * replay beans do not exist and the service would start as an idle consumer instead.
+ * Replay needs the plain JVM jar.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReplayAotGuard {
+
+    private final Environment environment;
+    private final ListableBeanFactory beanFactory;
+
+    @PostConstruct
+    void check() {
+        if (!environment.matchesProfiles("replay")) return;
+
+        if (beanFactory.getBeanNamesForType(ReplayRunner.class, false, false).length == 0) {
+            throw new RuntimeException("The 'replay' profile is active but replay is not part of this build"
+                    + (AotDetector.useGeneratedArtifacts() ? " (AOT/native bean set was processed without it)" : "")
+                    + "; run replay with the JVM jar without -Dspring.aot.enabled=true");
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.vishal.aiyoutube.ai_analysis_service.replay;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vishal.aiyoutube.ai_analysis_service.dto.AnalysisCompletedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appends replayed AnalysisCompletedEvents to a JSONL file and remembers which topics
+ * are still open, so the checkpoint never moves past an unfinished topic.
+ */
+@Slf4j
+@Component
+@Profile("replay")
+@RequiredArgsConstructor
+public class ReplayOutputWriter {
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${analysis.replay.output}")
+    private String outputPath;
+
+    /** Topics with at least one dispatched record and no result yet, mapped to their first record index. */
+    private final Map<UUID, Long> openTopics = new ConcurrentHashMap<>();
+    private final Set<UUID> completedTopics = ConcurrentHashMap.newKeySet();
+    private final AtomicLong written = new AtomicLong();
+
+    private BufferedWriter writer;
+
+    /**
+     * Opens the output file. When resuming, topics already present in the file are
+     * loaded so they are not replayed a second time.
+     */
+    public synchronized void open(boolean resume) throws IOException {
+        Path path = Path.of(outputPath);
+        if (resume && Files.exists(path)) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    try {
+                        JsonNode topicId = objectMapper.readTree(line).get("topicId");
+                        if (topicId != null) completedTopics.add(UUID.fromString(topicId.asText()));
+                    } catch (Exception e) {
+                        // A line cut off by the interrupted run; its topic is replayed again
+                        log.warn("Ignoring unreadable line in {}", path);
+                    }
+                }
+            }
+            log.info("Resuming: {} topics already present in {}", completedTopics.size(), path);
+        }
+
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                resume ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    public boolean isCompleted(UUID topicId) {
+        return completedTopics.contains(topicId);
+    }
+
+    public void markOpen(UUID topicId, long recordIndex) {
+        openTopics.putIfAbsent(topicId, recordIndex);
+    }
+
+    /**
+     * Smallest record index that must be replayed to rebuild every open topic, or Long.MAX_VALUE.
+     */
+    public long earliestOpenRecord() {
+        return openTopics.values().stream().mapToLong(Long::longValue).min().orElse(Long.MAX_VALUE);
+    }
+
+    public int getOpenTopicCount() {
+        return openTopics.size();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public void write(AnalysisCompletedEvent event) {
+        try {
+            String json = objectMapper.writeValueAsString(event);
+            synchronized (this) {
+                writer.write(json);
+                writer.newLine();
+            }
+            written.incrementAndGet();
+            // An early (quorum) revision still leaves the topic open for its late videos
+            if (!Boolean.FALSE.equals(event.getComplete())) {
+                completedTopics.add(event.getTopicId());
+                openTopics.remove(event.getTopicId());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write replay result for topic " + event.getTopicId(), e);
+        }
+    }
+
+    /**
+     * Makes everything written so far durable; called before each checkpoint.
+     */
+    public synchronized void flush() throws IOException {
+        if (writer != null) writer.flush();
+    }
+
+    @PreDestroy
+    synchronized void close() throws IOException {
+        if (writer != null) writer.close();
+    }
+}
@@ -0,0 +1,54 @@
+package com.vishal.aiyoutube.ai_analysis_service.replay;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.AnalysisCompletedEvent;
+import com.vishal.aiyoutube.ai_analysis_service.dto.StatusUpdateEvent;
+import com.vishal.aiyoutube.ai_analysis_service.dto.VideoInsightsEvent;
+import com.vishal.aiyoutube.ai_analysis_service.producer.AnalysisResultProducer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/**
+ * Replaces the Kafka producer during a replay run: final reports go to the output file
+ * and status updates only to the log, so no broker is needed. Topic closures stay local,
+ * since a replay run is the only owner of its topics.
+ */
+@Slf4j
+@Service
+@Primary
+@Profile("replay")
+public class ReplayResultProducer extends AnalysisResultProducer {
+
+    private final ReplayOutputWriter outputWriter;
+
+    public ReplayResultProducer(KafkaTemplate<String, Object> kafkaTemplate, ReplayOutputWriter outputWriter) {
+        super(kafkaTemplate);
+        this.outputWriter = outputWriter;
+    }
+
+    @Override
+    public void sendAnalysisCompleted(AnalysisCompletedEvent event) {
+        outputWriter.write(event);
+        log.info("Replay result written for Topic ID: {}", event.getTopicId());
+    }
+
+    @Override
+    public void sendVideoInsights(VideoInsightsEvent event) {
+        // Replay keeps segments in the final report (progressive publishing is off), so this is only logged
+        log.debug("Replay insights of Video {} for Topic ID {}", event.getVideoId(), event.getTopicId());
+    }
+
+    @Override
+    public void sendStatusUpdate(StatusUpdateEvent event) {
+        log.debug("Replay status [{}] for Topic ID {}: {}", event.getStatus(), event.getTopicId(), event.getMessage());
+    }
+
+    @Override
+    public void sendTopicClosed(UUID topicId) {
+        // Nothing to hand over: the replay run never shares its topics with another instance
+    }
+}
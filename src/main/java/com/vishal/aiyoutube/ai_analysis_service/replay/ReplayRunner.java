@@ -0,0 +1,204 @@
+package com.vishal.aiyoutube.ai_analysis_service.replay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vishal.aiyoutube.ai_analysis_service.consumer.KeyOrderedDispatcher;
+import com.vishal.aiyoutube.ai_analysis_service.dto.VideoDataProcessedEvent;
+import com.vishal.aiyoutube.ai_analysis_service.service.IAnalysisOrchestrator;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Offline backfill: replays VideoDataProcessedEvents from local JSONL files through the
+ * regular orchestrator, without a Kafka broker.
+ * * KEY ARCHITECTURAL FEATURES:
+ * 1. Streaming Input: Files are read line by line (".gz" files are decompressed on the fly),
+ * so input size is not bounded by the heap.
+ * 2. Same Pipeline: Records go through the KeyOrderedDispatcher and AnalysisOrchestrator
+ * exactly like consumed records; analysis.replay.parallelism caps the records in flight.
+ * 3. Resumable: A checkpoint records the first record that still has to be replayed: it
+ * never passes an unfinished record or the first record of a topic without a result.
+ * On resume, topics already present in the output file are skipped.
+ * 4. Benchmarking: A final summary reports records, results and throughput.
+ * * Activated with the 'replay' profile (see application-replay.properties); JVM jar only, see ReplayAotGuard.
+ */
+@Slf4j
+@Component
+@Profile("replay")
+@RequiredArgsConstructor
+public class ReplayRunner implements ApplicationRunner {
+
+    /** Pseudo partition used for offset tracking; record indexes act as offsets. */
+    private static final TopicPartition REPLAY_PARTITION = new TopicPartition("replay", 0);
+
+    private final IAnalysisOrchestrator analysisOrchestrator;
+    private final KeyOrderedDispatcher keyOrderedDispatcher;
+    private final ReplayOutputWriter outputWriter;
+    private final ObjectMapper objectMapper;
+    private final ConfigurableApplicationContext applicationContext;
+    private final ObservationRegistry observationRegistry;
+
+    /** Comma-separated JSONL files, replayed in the given order. */
+    @Value("${analysis.replay.input}")
+    private String[] inputPaths;
+
+    @Value("${analysis.replay.checkpoint-file}")
+    private String checkpointPath;
+
+    @Value("${analysis.replay.checkpoint-interval-seconds}")
+    private long checkpointIntervalSeconds;
+
+    @Value("${analysis.replay.resume}")
+    private boolean resume;
+
+    @Value("${analysis.replay.exit-on-completion}")
+    private boolean exitOnCompletion;
+
+    /** Highest record index below which every dispatched record has completed. */
+    private final AtomicLong completedThrough = new AtomicLong(-1);
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (inputPaths.length == 0) {
+            throw new RuntimeException("Replay profile active but analysis.replay.input is empty");
+        }
+
+        long resumeFrom = resume ? readCheckpoint() : 0;
+        completedThrough.set(resumeFrom - 1);
+        outputWriter.open(resume);
+        log.info("Replay starting from record {} over {} file(s)", resumeFrom, inputPaths.length);
+
+        ScheduledExecutorService checkpointer = Executors.newSingleThreadScheduledExecutor();
+        checkpointer.scheduleWithFixedDelay(this::checkpointQuietly,
+                checkpointIntervalSeconds, checkpointIntervalSeconds, TimeUnit.SECONDS);
+
+        long started = System.nanoTime();
+        long recordIndex = 0;
+        long dispatched = 0;
+        long skipped = 0;
+        long unreadable = 0;
+
+        try {
+            for (String inputPath : inputPaths) {
+                try (BufferedReader reader = openInput(Path.of(inputPath.trim()))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        long index = recordIndex++;
+                        if (index < resumeFrom || line.isBlank()) continue;
+
+                        VideoDataProcessedEvent event;
+                        try {
+                            event = objectMapper.readValue(line, VideoDataProcessedEvent.class);
+                        } catch (IOException e) {
+                            log.warn("Skipping unreadable record {} in {}: {}", index, inputPath, e.getMessage());
+                            unreadable++;
+                            continue;
+                        }
+
+                        if (event.getTopicId() == null || outputWriter.isCompleted(event.getTopicId())) {
+                            skipped++;
+                            continue;
+                        }
+
+                        outputWriter.markOpen(event.getTopicId(), index);
+                        keyOrderedDispatcher.dispatch(event.getTopicId(), REPLAY_PARTITION, index,
+                                () -> completedThrough.accumulateAndGet(index, Math::max),
+                                () -> replayObservation(event, index)
+                                        .observe(() -> analysisOrchestrator.processAnalysis(event)));
+                        dispatched++;
+                    }
+                }
+            }
+
+            // Wait for the tail of the run to drain
+            while (keyOrderedDispatcher.getInFlight() > 0) {
+                Thread.sleep(100);
+            }
+            completedThrough.set(recordIndex - 1);
+        } finally {
+            checkpointer.shutdownNow();
+            checkpoint();
+        }
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        log.info("REPLAY-SUMMARY records={} dispatched={} skipped={} unreadable={} results={} openTopics={} " +
+                        "elapsedSec={} recordsPerSec={}",
+                recordIndex - resumeFrom, dispatched, skipped, unreadable, outputWriter.getWrittenCount(),
+                outputWriter.getOpenTopicCount(), String.format("%.1f", seconds),
+                String.format("%.2f", seconds > 0 ? dispatched / seconds : 0.0));
+
+        if (exitOnCompletion) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    /**
+     * Replay counterpart of the 'analysis.video' span of the Kafka consumer, so each record's
+     * LLM attempts and the synthesis it triggers share one trace.
+     */
+    private Observation replayObservation(VideoDataProcessedEvent event, long index) {
+        return Observation.createNotStarted("analysis.video", observationRegistry)
+                .contextualName("replay video data")
+                .lowCardinalityKeyValue("dispatch", "replay")
+                .highCardinalityKeyValue("topic.id", event.getTopicId().toString())
+                .highCardinalityKeyValue("video.id", event.getVideoData() != null
+                        ? String.valueOf(event.getVideoData().getVideoId()) : "none")
+                .highCardinalityKeyValue("replay.record", String.valueOf(index));
+    }
+
+    private static BufferedReader openInput(Path path) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(path), 1 << 16);
+        if (path.getFileName().toString().endsWith(".gz")) {
+            in = new GZIPInputStream(in, 1 << 16);
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path path = Path.of(checkpointPath);
+        if (!Files.exists(path)) return 0;
+        return Long.parseLong(Files.readString(path, StandardCharsets.UTF_8).trim());
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            log.warn("Replay checkpoint failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the resume position atomically, after the output it covers has been flushed.
+     */
+    private synchronized void checkpoint() throws IOException {
+        long resumeFrom = Math.min(completedThrough.get() + 1, outputWriter.earliestOpenRecord());
+        outputWriter.flush();
+
+        Path path = Path.of(checkpointPath);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(tmp, Long.toString(resumeFrom), StandardCharsets.UTF_8);
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.debug("Replay checkpoint: resume from record {}", resumeFrom);
+    }
+}
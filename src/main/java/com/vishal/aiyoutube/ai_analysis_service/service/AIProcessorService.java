@@ -1,12 +1,29 @@
 package com.vishal.aiyoutube.ai_analysis_service.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vishal.aiyoutube.ai_analysis_service.config.GrokClient;
+import com.vishal.aiyoutube.ai_analysis_service.config.GrokRequestEncoder;
 import com.vishal.aiyoutube.ai_analysis_service.dto.InternalAnalysisDTO;
+import com.vishal.aiyoutube.ai_analysis_service.dto.JsonExtractionResult;
+import com.vishal.aiyoutube.ai_analysis_service.dto.LlmCallContext;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
 /**
  * AIProcessorService is the 'Synthesizer' of the analysis service.
  * It manages the conversation with Groq Cloud and implements a resilient retry strategy.
@@ -18,60 +35,214 @@ public class AIProcessorService implements IAIProcessorService {
 
     private final GrokClient grokClient;
     private final ObjectMapper objectMapper;
+    private final IJsonResponseExtractor jsonExtractor;
+    private final IAnalysisValidator analysisValidator;
+    private final IPromptEngine promptEngine;
+    private final ITopicDeadlineRegistry deadlineRegistry;
+    private final ILlmScheduler llmScheduler;
+    private final ITokenUsageLedger tokenLedger;
+    private final ObservationRegistry observationRegistry;
 
     private static final int MAX_RETRIES = 3;
     private static final long RETRY_DELAY_MS = 30000;
 
-    @Override
-    public InternalAnalysisDTO analyzeTranscripts(String prompt) {
-        log.info("Executing AI Analysis request for Groq Cloud...");
+    /** * Factor applied to the estimated answer length before it is sent as max_tokens.
+     */
+    @Value("${grok.max-tokens.headroom}")
+    private double maxTokensHeadroom;
+
+    /** * Hard ceiling for max_tokens, whatever the estimate (large packed batches).
+     */
+    @Value("${grok.max-tokens.cap}")
+    private int maxTokensCap;
 
-        /**
-         * MANUAL SCHEMA DEFINITION:
-         * Since we removed Spring AI dependencies, we define the expected JSON structure
-         * manually. This tells the LLM exactly what fields to return.
-         */
-        String jsonSchema = """
+    /**
+     * MANUAL SCHEMA DEFINITION:
+     * Since we removed Spring AI dependencies, we define the expected JSON structure
+     * manually. This tells the LLM exactly what fields to return.
+     */
+    private static final String JSON_SCHEMA = """
+            {
+              "summary": "string",
+              "sentiment": 0.0,
+              "consensus": 0.0,
+              "claims": ["string"],
+              "highlights": [
                 {
-                  "summary": "string",
-                  "sentiment": 0.0,
-                  "consensus": 0.0,
-                  "claims": ["string"],
-                  "highlights": [
-                    {
-                      "videoId": "string",
-                      "timestamp": "string",
-                      "explanation": "string",
-                      "shortSummary": "string"
-                    }
-                  ]
+                  "videoId": "string",
+                  "explanation": "string",
+                  "shortSummary": "string"
                 }
-                """;
+              ]
+            }
+            """;
+
+    private static final String SYSTEM_PROMPT = "You are a professional News and Content Analyst. " +
+            "Analyze the provided video data and return a structured JSON report. " +
+            "\nRULES: " +
+            "\n1. Return ONLY valid JSON. " +
+            "\n2. Do not include markdown formatting or backticks. " +
+            "\n3. Use this exact JSON structure: \n" + JSON_SCHEMA;
+
+    /**
+     * The system prompt and schema never change, so they are escaped and encoded once
+     * and copied into every request body as raw bytes.
+     */
+    private static final byte[] ENCODED_SYSTEM_PROMPT = GrokRequestEncoder.preEncode(SYSTEM_PROMPT);
+
+    /**
+     * PACKED SCHEMA:
+     * Several videos per request; one entry of the regular schema per videoId.
+     */
+    private static final String PACKED_JSON_SCHEMA = """
+            {
+              "<videoId>": {
+                "summary": "string",
+                "sentiment": 0.0,
+                "consensus": 0.0,
+                "claims": ["string"],
+                "highlights": [
+                  {
+                    "videoId": "string",
+                    "explanation": "string",
+                    "shortSummary": "string"
+                  }
+                ]
+              }
+            }
+            """;
+
+    private static final String PACKED_SYSTEM_PROMPT = "You are a professional News and Content Analyst. " +
+            "You receive several independent videos, each introduced by its videoId. " +
+            "Analyze every video separately and return one structured JSON report per video. " +
+            "\nRULES: " +
+            "\n1. Return ONLY valid JSON. " +
+            "\n2. Do not include markdown formatting or backticks. " +
+            "\n3. Use every videoId exactly once as a top-level key. " +
+            "\n4. Use this exact JSON structure: \n" + PACKED_JSON_SCHEMA;
+
+    private static final byte[] ENCODED_PACKED_SYSTEM_PROMPT = GrokRequestEncoder.preEncode(PACKED_SYSTEM_PROMPT);
+
+    private static final TypeReference<Map<String, InternalAnalysisDTO>> PACKED_RESULT_TYPE = new TypeReference<>() {};
+
+    /**
+     * REPAIR PROMPTS:
+     * Used when a response parses but breaks the schema. Only the broken JSON and the
+     * validation errors are sent back, never the transcript.
+     */
+    private static final String REPAIR_SYSTEM_PROMPT = "You are a strict JSON repair tool. " +
+            "You receive JSON that violates a schema together with the list of violations. " +
+            "\nRULES: " +
+            "\n1. Return ONLY valid JSON. " +
+            "\n2. Do not include markdown formatting or backticks. " +
+            "\n3. Do not invent new content; only correct what the errors describe. " +
+            "\n4. The result must match this exact JSON structure: \n";
+
+    private static final byte[] ENCODED_REPAIR_SYSTEM_PROMPT =
+            GrokRequestEncoder.preEncode(REPAIR_SYSTEM_PROMPT + JSON_SCHEMA);
+    private static final byte[] ENCODED_PACKED_REPAIR_SYSTEM_PROMPT =
+            GrokRequestEncoder.preEncode(REPAIR_SYSTEM_PROMPT + PACKED_JSON_SCHEMA);
+
+    /**
+     * Maps the sanitized JSON of a response onto the expected result type.
+     */
+    @FunctionalInterface
+    private interface ResponseParser<T> {
+        T parse(String json) throws JsonProcessingException;
+
+        default T parseQuietly(String json) {
+            try {
+                return parse(json);
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("AI response does not map to the schema: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    /**
+     * What a call expects back: the parser, the schema checks, the repair prompt to use and
+     * the estimated output tokens of a complete answer. Packed calls carry the weights their
+     * token usage is split by; calls for a single topic have none.
+     */
+    private record ResponseSpec<T>(ResponseParser<T> parser,
+                                   Function<T, List<String>> validator,
+                                   byte[] repairSystemPrompt,
+                                   Map<UUID, Integer> packedTopicShares,
+                                   int expectedTokens) {
+
+        boolean topicScoped() {
+            return packedTopicShares == null;
+        }
+    }
+
+    @Override
+    public InternalAnalysisDTO analyzeTranscripts(LlmCallContext context, String prompt) {
+        return analyzeTranscripts(context, out -> out.writeEscaped(prompt));
+    }
+
+    @Override
+    public InternalAnalysisDTO analyzeTranscripts(LlmCallContext context, GrokRequestEncoder.PromptWriter prompt) {
+        log.info("Executing AI Analysis request for Groq Cloud...");
+        return executeWithRetries(context, ENCODED_SYSTEM_PROMPT, prompt, MAX_RETRIES, new ResponseSpec<>(
+                json -> objectMapper.readValue(json, InternalAnalysisDTO.class),
+                analysis -> analysisValidator.validate(analysis, context.getKind()),
+                ENCODED_REPAIR_SYSTEM_PROMPT,
+                null,
+                context.getKind() == LlmCallContext.CallKind.SYNTHESIS
+                        ? OutputTokenBudget.synthesis()
+                        : OutputTokenBudget.analysis(IPromptEngine.HIGHLIGHTS_PER_VIDEO)));
+    }
 
-        String systemPrompt = "You are a professional News and Content Analyst. " +
-                "Analyze the provided video data and return a structured JSON report. " +
-                "\nRULES: " +
-                "\n1. Return ONLY valid JSON. " +
-                "\n2. Do not include markdown formatting or backticks. " +
-                "\n3. Use this exact JSON structure: \n" + jsonSchema;
+    /**
+     * Packed calls get a single attempt: on failure every video falls back to its own
+     * request, which is cheaper than stalling the whole batch behind retry back-offs.
+     */
+    @Override
+    public Map<String, InternalAnalysisDTO> analyzePackedTranscripts(LlmCallContext context,
+                                                                     int documents,
+                                                                     Map<UUID, Integer> topicShares,
+                                                                     GrokRequestEncoder.PromptWriter prompt) {
+        log.info("Executing packed AI Analysis request for Groq Cloud...");
+        return executeWithRetries(context, ENCODED_PACKED_SYSTEM_PROMPT, prompt, 1, new ResponseSpec<>(
+                json -> objectMapper.readValue(json, PACKED_RESULT_TYPE),
+                this::validatePacked,
+                ENCODED_PACKED_REPAIR_SYSTEM_PROMPT,
+                // A batch mixes topics, so closing one of them must not cancel the others
+                topicShares,
+                OutputTokenBudget.packed(documents, IPromptEngine.HIGHLIGHTS_PER_VIDEO)));
+    }
 
-        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
+    private <T> T executeWithRetries(LlmCallContext context,
+                                     byte[] systemPrompt,
+                                     GrokRequestEncoder.PromptWriter prompt,
+                                     int maxAttempts,
+                                     ResponseSpec<T> spec) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
             try {
-                String rawResponse = grokClient.chat(systemPrompt, prompt);
-                String sanitizedJson = extractJson(rawResponse);
-                return objectMapper.readValue(sanitizedJson, InternalAnalysisDTO.class);
+                // The attempt span covers the scheduler queue, the Groq call and a possible repair
+                return attemptObservation(context, attempt, spec).observe(() -> {
+                    // Only the call itself holds a scheduler slot; retry back-off happens outside it
+                    String rawResponse = llmScheduler.execute(context,
+                            () -> callWithinDeadline(context, out -> out.writeRaw(systemPrompt), prompt, spec,
+                                    maxTokens(spec.expectedTokens())));
+                    return parseOrRepair(context, rawResponse, spec);
+                });
 
+            } catch (TopicDeadlineExceededException e) {
+                // No point retrying work for a topic that is out of time or already closed
+                throw e;
             } catch (Exception e) {
                 log.warn("Attempt {} failed for AI Synthesis: {}", attempt, e.getMessage());
 
-                if (attempt < MAX_RETRIES) {
+                if (attempt < maxAttempts) {
+                    ensureTimeForRetry(context, spec);
                     try {
                         Thread.sleep(RETRY_DELAY_MS);
                     } catch (InterruptedException ie) {
                         Thread.currentThread().interrupt();
                     }
                 } else {
-                    log.error("AI Analysis failed after {} retries.", MAX_RETRIES);
+                    log.error("AI Analysis failed after {} retries.", maxAttempts);
                     throw new RuntimeException("AI processing failure: " + e.getMessage());
                 }
             }
@@ -79,17 +250,126 @@ public class AIProcessorService implements IAIProcessorService {
         throw new RuntimeException("Unexpected AI Service Error.");
     }
 
-    private String extractJson(String rawResponse) {
-        if (rawResponse == null || rawResponse.isEmpty()) throw new RuntimeException("Empty AI response");
-        try {
-            int startIndex = rawResponse.indexOf("{");
-            int endIndex = rawResponse.lastIndexOf("}");
-            if (startIndex != -1 && endIndex != -1 && endIndex > startIndex) {
-                return rawResponse.substring(startIndex, endIndex + 1);
-            }
+    private Observation attemptObservation(LlmCallContext context, int attempt, ResponseSpec<?> spec) {
+        Observation observation = Observation.createNotStarted("analysis.llm.attempt", observationRegistry)
+                .contextualName("llm attempt")
+                .lowCardinalityKeyValue("call.kind", context.getKind().name())
+                .lowCardinalityKeyValue("packed", String.valueOf(!spec.topicScoped()))
+                .highCardinalityKeyValue("attempt", String.valueOf(attempt));
+        if (spec.topicScoped() && context.getTopicId() != null) {
+            observation.highCardinalityKeyValue("topic.id", context.getTopicId().toString());
+        }
+        return observation;
+    }
+
+    /**
+     * Parses and validates the response. On schema violations, one targeted repair request
+     * (broken JSON + errors) is made before the caller falls back to a full retry.
+     */
+    private <T> T parseOrRepair(LlmCallContext context, String rawResponse, ResponseSpec<T> spec) {
+        String json = extract(rawResponse);
+        List<String> errors = check(json, spec);
+        if (errors.isEmpty()) return spec.parser().parseQuietly(json);
+
+        log.warn("AI response violates the schema, requesting a repair: {}", errors);
+        String repairPrompt = promptEngine.buildRepairPrompt(json, errors);
+        String repairedResponse = llmScheduler.execute(context, () -> callWithinDeadline(context,
+                out -> out.writeRaw(spec.repairSystemPrompt()),
+                out -> out.writeEscaped(repairPrompt),
+                spec,
+                maxTokens(OutputTokenBudget.repair(json.length(), spec.expectedTokens()))));
+
+        String repairedJson = extract(repairedResponse);
+        List<String> remaining = check(repairedJson, spec);
+        if (!remaining.isEmpty()) {
+            throw new RuntimeException("AI response still invalid after repair: " + remaining);
+        }
+        log.info("AI response repaired with a {}-char repair request", repairPrompt.length());
+        return spec.parser().parseQuietly(repairedJson);
+    }
+
+    /**
+     * Runs one Groq call bounded by the topic's remaining time and registered for
+     * cancellation, so closing the topic aborts the HTTP exchange. Its token usage is
+     * charged to the topic (packed calls split it across their topics).
+     */
+    private String callWithinDeadline(LlmCallContext context,
+                                      GrokRequestEncoder.PromptWriter systemPrompt,
+                                      GrokRequestEncoder.PromptWriter userPrompt,
+                                      ResponseSpec<?> spec,
+                                      int maxTokens) {
+        UUID topicId = spec.topicScoped() ? context.getTopicId() : null;
+        Duration remaining = deadlineRegistry.remaining(topicId);
+        Duration timeout = remaining == null || remaining.compareTo(grokClient.getDefaultTimeout()) > 0
+                ? grokClient.getDefaultTimeout()
+                : remaining;
+
+        String model = context.getModel() != null ? context.getModel() : grokClient.getDefaultModel();
+        CompletableFuture<String> call = grokClient.chatAsync(model, maxTokens, systemPrompt, userPrompt, timeout,
+                usage -> {
+                    if (spec.topicScoped()) {
+                        tokenLedger.record(topicId, model, usage.getPrompt_tokens(), usage.getCompletion_tokens());
+                    } else {
+                        tokenLedger.recordShared(spec.packedTopicShares(), model,
+                                usage.getPrompt_tokens(), usage.getCompletion_tokens());
+                    }
+                });
+        try (AutoCloseable ignored = deadlineRegistry.track(topicId, call)) {
+            return GrokClient.await(call);
+        } catch (CancellationException e) {
+            throw new TopicDeadlineExceededException(topicId, "LLM call cancelled: topic " + topicId + " was closed");
+        } catch (RuntimeException e) {
+            // A timeout caused by the deadline surfaces as a deadline failure, not a retryable error
+            deadlineRegistry.ensureOpen(topicId);
+            throw e;
         } catch (Exception e) {
-            log.error("JSON Extraction failed.");
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * The max_tokens sent for an answer estimated at {@code expectedTokens}.
+     */
+    private int maxTokens(int expectedTokens) {
+        return Math.min(maxTokensCap, (int) Math.ceil(expectedTokens * maxTokensHeadroom));
+    }
+
+    /**
+     * Skips the back-off when the topic could not afford another attempt anyway.
+     */
+    private void ensureTimeForRetry(LlmCallContext context, ResponseSpec<?> spec) {
+        if (!spec.topicScoped()) return;
+        Duration remaining = deadlineRegistry.remaining(context.getTopicId());
+        if (remaining != null && remaining.toMillis() <= RETRY_DELAY_MS) {
+            throw new TopicDeadlineExceededException(context.getTopicId(),
+                    "Not enough time left for another attempt (" + remaining.toSeconds() + "s)");
         }
-        return rawResponse;
     }
-}
\ No newline at end of file
+
+    private String extract(String rawResponse) {
+        JsonExtractionResult extraction = jsonExtractor.extract(rawResponse);
+        if (extraction.isRepaired()) {
+            log.info("Repaired AI response before parsing: {}", extraction.getRepairs());
+        }
+        return extraction.getJson();
+    }
+
+    /**
+     * Runs the parser and the validator; a mapping failure counts as a single violation.
+     */
+    private <T> List<String> check(String json, ResponseSpec<T> spec) {
+        try {
+            return spec.validator().apply(spec.parser().parse(json));
+        } catch (JsonProcessingException e) {
+            return List.of("does not map to the schema: " + e.getOriginalMessage());
+        }
+    }
+
+    private List<String> validatePacked(Map<String, InternalAnalysisDTO> results) {
+        List<String> errors = new ArrayList<>();
+        results.forEach((videoId, analysis) -> analysisValidator
+                .validate(analysis, LlmCallContext.CallKind.ANALYSIS)
+                .forEach(error -> errors.add("\"" + videoId + "\": " + error)));
+        return errors;
+    }
+}
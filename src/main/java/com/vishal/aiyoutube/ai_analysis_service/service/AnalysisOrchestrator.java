@@ -2,13 +2,21 @@ package com.vishal.aiyoutube.ai_analysis_service.service;
 
 import com.vishal.aiyoutube.ai_analysis_service.dto.*;
 import com.vishal.aiyoutube.ai_analysis_service.producer.AnalysisResultProducer;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Slf4j
 @Service
@@ -18,93 +26,533 @@ public class AnalysisOrchestrator implements IAnalysisOrchestrator {
     private final IAIProcessorService aiProcessor;
     private final AnalysisResultProducer resultProducer;
     private final PromptEngine promptEngine;
+    private final IClaimClusteringEngine claimClusteringEngine;
+    private final IDocumentPacker documentPacker;
+    private final ITopicDeadlineRegistry deadlineRegistry;
+    private final ITimestampResolver timestampResolver;
+    private final TopicActorRuntime actors;
+    private final ITokenUsageLedger tokenLedger;
+    private final ObservationRegistry observationRegistry;
 
-    private final Map<UUID, List<InternalAnalysisDTO>> partialResultsMap = new ConcurrentHashMap<>();
-    private final Map<UUID, List<AnalysisCompletedEvent.VideoSegmentDTO>> allSegmentsMap = new ConcurrentHashMap<>();
+    /** Runs synthesis triggered by the quorum sweep, off the scheduler thread. */
+    private final ExecutorService synthesisExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /** Carries the current trace into the synthesis thread. */
+    private static final ContextSnapshotFactory CONTEXT_SNAPSHOTS = ContextSnapshotFactory.builder().build();
 
     private static final int MAX_TRANSCRIPT_CHARS = 8000;
+    private static final int MAX_CLAIM_CLUSTERS_IN_PROMPT = 40;
+    private static final int MAX_LOCAL_SUMMARY_SOURCES = 3;
+
+    /**
+     * What to do with videos analyzed after a report was published at quorum.
+     */
+    public enum LatePolicy {
+        /** Close the topic at the first report; stragglers are cancelled. */
+        IGNORE,
+        /** Keep the topic open and publish a revised report for every late video. */
+        RESYNTHESIZE
+    }
+
+    /** Share of totalVideos (0.0 to 1.0) that must be analyzed before an early report. */
+    @Value("${analysis.quorum.ratio}")
+    private double quorumRatio;
+
+    /** How long to wait for stragglers once the quorum is met. */
+    @Value("${analysis.quorum.grace-seconds}")
+    private long graceSeconds;
+
+    /** Finalize at quorum when less than this is left before the topic deadline. */
+    @Value("${analysis.quorum.synthesis-reserve-seconds}")
+    private long synthesisReserveSeconds;
+
+    @Value("${analysis.quorum.late-policy}")
+    private LatePolicy latePolicy;
+
+    /** Publish each video's insights as soon as they are ready; the final report then only references them. */
+    @Value("${analysis.progressive.enabled}")
+    private boolean progressive;
+
+    @PreDestroy
+    void stop() {
+        synthesisExecutor.shutdownNow();
+    }
 
     @Override
-    public void processAnalysis(VideoDataProcessedEvent event) {
+    public void processAnalysis(VideoDataProcessedEvent event, VideoEventHeaders headers) {
         UUID tid = event.getTopicId();
         log.info("Received Video {}/{} for Topic: {}", event.getCurrentCount(), event.getTotalVideos(), tid);
 
+        if (!deadlineRegistry.open(tid, headers.getTopicDeadline())) {
+            log.warn("Dropping Video {}/{} for Topic {}: topic already closed (deadline or final report)",
+                    event.getCurrentCount(), event.getTotalVideos(), tid);
+            return;
+        }
+
+        TopicActor actor = actors.actorOf(tid);
+        String videoId = event.getVideoData() != null ? event.getVideoData().getVideoId() : null;
+        Admission admission = actor.ask(state -> admit(state, event, headers, videoId)).join();
+        if (!admission.accepted()) {
+            log.info("Dropping duplicate Video {} for Topic {}", videoId, tid);
+            return;
+        }
+
         try {
-            String fullTranscript = event.getVideoData().getSegments().stream()
-                    .map(VideoDataProcessedEvent.TranscriptSegmentDTO::getText)
-                    .collect(Collectors.joining(" "));
+            List<VideoDataProcessedEvent.TranscriptSegmentDTO> transcript = event.getVideoData().getSegments();
 
-            String safeTranscript = fullTranscript.length() > MAX_TRANSCRIPT_CHARS
-                    ? fullTranscript.substring(0, MAX_TRANSCRIPT_CHARS) + "..."
-                    : fullTranscript;
+            // Topics close to their token budget get a shorter window and, later, the smaller model
+            TokenBudgetMode budgetMode = tokenLedger.modeFor(tid);
+            int transcriptChars = tokenLedger.transcriptChars(budgetMode, MAX_TRANSCRIPT_CHARS);
 
-            // Individual Video Analysis
-            InternalAnalysisDTO partialAiResult = aiProcessor.analyzeTranscripts(
-                    promptEngine.buildAnalysisPrompt(safeTranscript)
-            );
+            LlmCallContext callContext = LlmCallContext.builder()
+                    .topicId(tid)
+                    .tenantId(admission.tenantId())
+                    .kind(LlmCallContext.CallKind.ANALYSIS)
+                    .currentCount(event.getCurrentCount())
+                    .totalVideos(event.getTotalVideos())
+                    .model(tokenLedger.modelFor(budgetMode))
+                    .build();
 
-            // Convert for aggregation
-            List<AnalysisCompletedEvent.VideoSegmentDTO> currentSegments = partialAiResult.getHighlights().stream()
-                    .map(h -> AnalysisCompletedEvent.VideoSegmentDTO.builder()
-                            .videoId(event.getVideoData().getVideoId())
-                            .videoTitle(event.getVideoData().getTitle())
-                            .videoUrl(event.getVideoData().getVideoUrl())
-                            .timestamp(h.getTimestamp())
-                            .bestExplanation(h.getExplanation())
-                            .segmentSummary(h.getShortSummary())
-                            .build())
-                    .toList();
+            // Short videos share a request with other short videos when packing is enabled
+            InternalAnalysisDTO partialAiResult = documentPacker.accepts(event.getVideoData())
+                    ? documentPacker.analyze(callContext, event.getVideoData())
+                    : null;
 
-            allSegmentsMap.computeIfAbsent(tid, k -> Collections.synchronizedList(new ArrayList<>())).addAll(currentSegments);
-            partialResultsMap.computeIfAbsent(tid, k -> Collections.synchronizedList(new ArrayList<>())).add(partialAiResult);
+            if (partialAiResult == null) {
+                // Individual Video Analysis (segments are streamed into the request, capped at transcriptChars)
+                partialAiResult = aiProcessor.analyzeTranscripts(callContext,
+                        out -> promptEngine.writeAnalysisPrompt(transcript, transcriptChars, out)
+                );
+            }
 
-            // Check if we hit the strict target (e.g., 3/3)
-            if (event.getCurrentCount() >= event.getTotalVideos()) {
-                performFinalSynthesis(tid);
-            } else {
-                resultProducer.sendStatusUpdate(new StatusUpdateEvent(tid, "ANALYZING",
-                        "Analyzed " + event.getCurrentCount() + " of " + event.getTotalVideos() + " sources..."));
+            // Highlights are located in the transcript locally; the LLM never sees segment offsets
+            List<InternalAnalysisDTO.Highlight> highlights = partialAiResult.getHighlights();
+            List<String> offsets = timestampResolver.resolve(transcript, highlights);
+
+            // Convert for aggregation
+            List<AnalysisCompletedEvent.VideoSegmentDTO> currentSegments = new ArrayList<>(highlights.size());
+            for (int i = 0; i < highlights.size(); i++) {
+                InternalAnalysisDTO.Highlight h = highlights.get(i);
+                currentSegments.add(AnalysisCompletedEvent.VideoSegmentDTO.builder()
+                        .videoId(event.getVideoData().getVideoId())
+                        .videoTitle(event.getVideoData().getTitle())
+                        .videoUrl(event.getVideoData().getVideoUrl())
+                        .timestamp(offsets.get(i))
+                        .bestExplanation(h.getExplanation())
+                        .segmentSummary(h.getShortSummary())
+                        .build());
             }
 
+            InternalAnalysisDTO analysis = partialAiResult;
+            settle(actor, event, actor.ask(state -> onAnalyzed(actor, state, event, analysis, currentSegments)).join());
+
+        } catch (TopicDeadlineExceededException e) {
+            log.warn("Analysis abandoned for topic {}: {}", tid, e.getMessage());
+            failTopic(tid, "Deadline exceeded");
         } catch (Exception e) {
             log.error("Analysis failed for topic {}: {}", tid, e.getMessage());
-            resultProducer.sendStatusUpdate(new StatusUpdateEvent(tid, "FAILED", "AI logic error"));
+            settle(actor, event, actor.ask(state -> onFailed(actor, state)).join());
+        }
+    }
+
+    /**
+     * Result of admitting a video into its topic; tenantId is the topic's tenant at that point.
+     */
+    private record Admission(boolean accepted, String tenantId) {
+    }
+
+    /**
+     * What a video's worker must do after the topic's actor recorded the video's outcome.
+     */
+    private enum Settlement {
+        /** Just report progress. */
+        PROGRESS,
+        /** Run the synthesis (the actor has marked it running). */
+        SYNTHESIZE,
+        /** A synthesis is already running and will pick the video up. */
+        RESYNTHESIS_QUEUED,
+        /** Too many videos failed for a quorum. */
+        FAIL,
+        /** The topic was finalized or handed to another instance meanwhile. */
+        DETACHED
+    }
+
+    /**
+     * Actor message: registers the video unless it is a duplicate.
+     */
+    private Admission admit(TopicState state, VideoDataProcessedEvent event, VideoEventHeaders headers, String videoId) {
+        if (videoId != null && !state.videoIds.add(videoId)) {
+            return new Admission(false, state.tenantId);
+        }
+        if (headers.getTenantId() != null) state.tenantId = headers.getTenantId();
+        state.totalVideos = event.getTotalVideos();
+        state.receivedVideos = Math.max(state.receivedVideos, event.getCurrentCount());
+        return new Admission(true, state.tenantId);
+    }
+
+    /**
+     * Actor message: folds an analyzed video into the topic.
+     */
+    private Settlement onAnalyzed(TopicActor actor, TopicState state, VideoDataProcessedEvent event,
+                                  InternalAnalysisDTO analysis,
+                                  List<AnalysisCompletedEvent.VideoSegmentDTO> currentSegments) {
+        if (!actors.isCurrent(actor)) return Settlement.DETACHED;
+
+        if (!progressive) state.segments.addAll(currentSegments);
+        state.partials.add(analysis);
+        state.analyzedVideoIds.add(event.getVideoData().getVideoId());
+        if (state.quorumReachedAt == null && state.quorumMet(quorumRatio)) {
+            state.quorumReachedAt = Instant.now();
+        }
+
+        // First insight reaches the user after one video instead of after the whole topic
+        if (progressive) {
+            resultProducer.sendVideoInsights(VideoInsightsEvent.builder()
+                    .topicId(state.topicId)
+                    .videoId(event.getVideoData().getVideoId())
+                    .videoTitle(event.getVideoData().getTitle())
+                    .videoUrl(event.getVideoData().getVideoUrl())
+                    .summary(analysis.getSummary())
+                    .sentiment(analysis.getSentiment())
+                    .segments(currentSegments)
+                    .analyzedVideos(state.partials.size())
+                    .totalVideos(event.getTotalVideos())
+                    .build());
+        }
+        return nextStep(state);
+    }
+
+    /**
+     * Actor message: counts a failed video. One failure no longer sinks the topic as long
+     * as the quorum is still reachable.
+     */
+    private Settlement onFailed(TopicActor actor, TopicState state) {
+        if (!actors.isCurrent(actor)) return Settlement.DETACHED;
+
+        state.failedVideos++;
+        return state.quorumUnreachable(quorumRatio) ? Settlement.FAIL : nextStep(state);
+    }
+
+    /**
+     * Decides what happens after a video was analyzed (or failed): the full report once
+     * every video is in, a revision for a late video, or just a progress update.
+     */
+    private Settlement nextStep(TopicState state) {
+        boolean lateVideo = state.publishedRevision > 0 || state.synthesisRunning;
+        if (!state.allVideosIn() && !lateVideo) return Settlement.PROGRESS;
+
+        if (state.synthesisRunning) {
+            // The running synthesis picks this video up when it finishes
+            state.resynthesisPending = true;
+            return Settlement.RESYNTHESIS_QUEUED;
+        }
+        state.synthesisRunning = true;
+        return Settlement.SYNTHESIZE;
+    }
+
+    /**
+     * Carries out a settlement on the worker thread; the synthesis blocks on the LLM, so it
+     * never runs inside the actor.
+     */
+    private void settle(TopicActor actor, VideoDataProcessedEvent event, Settlement settlement) {
+        switch (settlement) {
+            case SYNTHESIZE -> performSynthesis(actor);
+            case FAIL -> failTopic(actor.topicId(), "AI logic error");
+            case PROGRESS -> resultProducer.sendStatusUpdate(new StatusUpdateEvent(actor.topicId(), "ANALYZING",
+                    "Analyzed " + event.getCurrentCount() + " of " + event.getTotalVideos() + " sources..."));
+            case RESYNTHESIS_QUEUED, DETACHED -> {
+            }
+        }
+    }
+
+    /**
+     * Quorum policy: publishes a report for topics that have enough analyzed videos and
+     * either waited out the grace period or are about to hit their deadline.
+     */
+    @Scheduled(fixedDelayString = "${analysis.deadline.sweep-interval-ms}")
+    public void finalizeAtQuorum() {
+        Instant now = Instant.now();
+        for (TopicActor actor : actors.all()) {
+            actor.tell(state -> {
+                if (state.publishedRevision > 0 || state.synthesisRunning || state.quorumReachedAt == null) return;
+
+                boolean graceOver = !now.isBefore(state.quorumReachedAt.plusSeconds(graceSeconds));
+                if (!graceOver && !deadlineNear(state.topicId)) return;
+
+                log.info("Quorum reached for Topic {}: {}/{} videos analyzed, finalizing early",
+                        state.topicId, state.partials.size(), state.totalVideos);
+                state.synthesisRunning = true;
+                synthesisExecutor.execute(CONTEXT_SNAPSHOTS.captureAll().wrap(() -> performSynthesis(actor)));
+            });
         }
     }
 
-    private void performFinalSynthesis(UUID tid) {
-        log.info("All sources collected. Calculating Consensus for Topic: {}", tid);
-        List<InternalAnalysisDTO> partials = partialResultsMap.get(tid);
-        List<AnalysisCompletedEvent.VideoSegmentDTO> allSegments = allSegmentsMap.get(tid);
+    /**
+     * Fails topics whose deadline passed before a report could be published.
+     * Their in-flight LLM calls are cancelled by the registry.
+     */
+    @Scheduled(fixedDelayString = "${analysis.deadline.sweep-interval-ms}")
+    public void expireOverdueTopics() {
+        for (UUID tid : deadlineRegistry.expireOverdue()) {
+            TopicActor actor = actors.remove(tid);
+            if (actor == null) {
+                reportExpired(tid, 0);
+            } else {
+                actor.tell(state -> reportExpired(tid, state.publishedRevision));
+            }
+        }
+    }
+
+    private void reportExpired(UUID tid, int publishedRevision) {
+        if (publishedRevision > 0) {
+            // Late videos of an already reported topic just stop being waited for
+            log.info("Topic {} reached its deadline after revision {}; closing", tid, publishedRevision);
+        } else {
+            log.warn("Topic {} missed its deadline", tid);
+            resultProducer.sendStatusUpdate(new StatusUpdateEvent(tid, "FAILED", "Deadline exceeded"));
+        }
+        resultProducer.sendTopicClosed(tid);
+    }
+
+    @Override
+    public boolean isTopicOpen(UUID topicId) {
+        return actors.get(topicId) != null;
+    }
+
+    @Override
+    public void releaseTopic(UUID topicId) {
+        TopicActor actor = actors.remove(topicId);
+        if (actor == null) return;
+
+        // No tombstone and no status update: the topic is not done, only owned elsewhere now
+        deadlineRegistry.release(topicId);
+        actor.tell(state -> log.info("Released Topic {} after losing its partition ({} videos analyzed here)",
+                topicId, state.partials.size()));
+    }
+
+    private boolean deadlineNear(UUID tid) {
+        try {
+            Duration remaining = deadlineRegistry.remaining(tid);
+            return remaining != null && remaining.toSeconds() < synthesisReserveSeconds;
+        } catch (TopicDeadlineExceededException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Drops the topic's actor and reports the topic as FAILED.
+     * The deadline sweep, finalization, a hand-off and a cancelled worker may all get here;
+     * whoever removed the actor first owns the outcome, so only that caller reports.
+     */
+    private void failTopic(UUID tid, String reason) {
+        TopicActor actor = actors.remove(tid);
+        if (actor == null) return;
+
+        actor.tell(state -> {
+            if (closeTopic(tid) && state.publishedRevision == 0) {
+                resultProducer.sendStatusUpdate(new StatusUpdateEvent(tid, "FAILED", reason));
+            }
+        });
+    }
+
+    /**
+     * Closes the topic in the deadline registry and tells the other instances about it.
+     * @return false if the topic was already closed.
+     */
+    private boolean closeTopic(UUID tid) {
+        if (!deadlineRegistry.close(tid)) return false;
+        resultProducer.sendTopicClosed(tid);
+        return true;
+    }
+
+    /**
+     * Everything a synthesis round needs, copied out of the actor.
+     */
+    private record SynthesisInput(List<InternalAnalysisDTO> partials,
+                                  List<String> sourceVideoIds,
+                                  List<AnalysisCompletedEvent.VideoSegmentDTO> segments,
+                                  boolean complete,
+                                  int totalVideos,
+                                  String tenantId) {
+    }
 
-        if (partials == null || partials.isEmpty()) return;
+    /**
+     * Publishes a report revision from everything analyzed so far, repeating while
+     * late videos arrived during the previous synthesis. Caller has set synthesisRunning.
+     */
+    private void performSynthesis(TopicActor actor) {
+        UUID tid = actor.topicId();
+        while (true) {
+            SynthesisInput input = actor.ask(state -> {
+                state.resynthesisPending = false;
+                return new SynthesisInput(
+                        List.copyOf(state.partials),
+                        List.copyOf(state.analyzedVideoIds),
+                        // Progressive mode: segments already went out per video, the report only references them
+                        progressive ? null : List.copyOf(state.segments),
+                        state.allVideosIn() && state.partials.size() + state.failedVideos >= state.totalVideos,
+                        state.totalVideos,
+                        state.tenantId);
+            }).join();
 
-        String combinedContext = partials.stream()
-                .map(p -> "Source Summary: " + p.getSummary() + " | Claims: " + String.join(", ", p.getClaims()))
-                .collect(Collectors.joining("\n---\n"));
+            if (input.partials().isEmpty()) {
+                failTopic(tid, "AI logic error");
+                return;
+            }
+
+            TokenBudgetMode budgetMode = tokenLedger.modeFor(tid);
+            // One span per published revision: local consensus, the LLM synthesis and the sends
+            boolean published = Boolean.TRUE.equals(Observation.createNotStarted("analysis.synthesis", observationRegistry)
+                    .contextualName("synthesize topic")
+                    .lowCardinalityKeyValue("budget.mode", budgetMode.name())
+                    .lowCardinalityKeyValue("complete", String.valueOf(input.complete()))
+                    .highCardinalityKeyValue("topic.id", tid.toString())
+                    .highCardinalityKeyValue("sources", String.valueOf(input.partials().size()))
+                    .highCardinalityKeyValue("total.videos", String.valueOf(input.totalVideos()))
+                    .observe(() -> synthesizeAndPublish(actor, input, budgetMode)));
+
+            boolean done = actor.ask(state -> {
+                boolean moreToCome = !input.complete() && latePolicy == LatePolicy.RESYNTHESIZE;
+                if (published && state.resynthesisPending && moreToCome) return false;
+
+                state.synthesisRunning = false;
+                if (!published || !moreToCome) {
+                    // Finalized: cancel stragglers and drop the actor, unless the topic was handed off meanwhile
+                    if (actors.remove(actor)) closeTopic(tid);
+                }
+                return true;
+            }).join();
+            if (done) return;
+        }
+    }
+
+    private boolean synthesizeAndPublish(TopicActor actor, SynthesisInput input, TokenBudgetMode budgetMode) {
+        UUID tid = actor.topicId();
+        List<InternalAnalysisDTO> partials = input.partials();
+        log.info("Sources collected ({}/{}). Calculating Consensus for Topic: {}",
+                partials.size(), input.totalVideos(), tid);
+
+        /**
+         * LOCAL CONSENSUS:
+         * Near-duplicate claims are clustered without the LLM. Support counts give a
+         * deterministic consensus, and only one representative per cluster is sent on.
+         */
+        ClaimConsensusDTO claimConsensus = claimClusteringEngine.cluster(partials.stream()
+                .map(p -> p.getClaims() != null ? p.getClaims() : List.<String>of())
+                .toList());
 
         try {
-            // THE GLOBAL SYNTHESIS: This determines the final Consensus and Summary
-            InternalAnalysisDTO finalAi = aiProcessor.analyzeTranscripts(
-                    promptEngine.buildGlobalSynthesisPrompt(combinedContext)
-            );
+            InternalAnalysisDTO finalAi;
+            if (budgetMode == TokenBudgetMode.LOCAL_SYNTHESIS) {
+                // Budget nearly spent: assemble the report from what the videos already yielded
+                log.warn("Topic {} is at its token budget; publishing a locally synthesized report", tid);
+                finalAi = synthesizeLocally(partials, claimConsensus);
+            } else {
+                LlmCallContext callContext = LlmCallContext.builder()
+                        .topicId(tid)
+                        .tenantId(input.tenantId())
+                        .kind(LlmCallContext.CallKind.SYNTHESIS)
+                        .model(tokenLedger.modelFor(budgetMode))
+                        .build();
+
+                // THE GLOBAL SYNTHESIS: This determines the final Summary and Sentiment
+                finalAi = aiProcessor.analyzeTranscripts(callContext,
+                        promptEngine.buildGlobalSynthesisPrompt(buildSynthesisContext(partials, claimConsensus))
+                );
+            }
+
+            List<String> commonClaims = claimConsensus.getClusters().stream()
+                    .filter(c -> c.getSupport() >= 2)
+                    .map(ClaimConsensusDTO.ClaimCluster::getRepresentative)
+                    .toList();
+
+            // 0 when the topic moved to another instance while the LLM was working
+            int revision = actor.ask(state -> actors.isCurrent(actor) ? ++state.publishedRevision : 0).join();
+            if (revision == 0) {
+                log.info("Discarding synthesis of Topic {}: it is now owned by another instance", tid);
+                return false;
+            }
 
             resultProducer.sendAnalysisCompleted(AnalysisCompletedEvent.builder()
                     .topicId(tid)
                     .finalSummary(finalAi.getSummary())
                     .sentimentScore(finalAi.getSentiment())
-                    .consensusPercentage(finalAi.getConsensus())
-                    .commonClaims(finalAi.getClaims() != null ? String.join(", ", finalAi.getClaims()) : "Diverse perspectives found")
-                    .segments(allSegments)
+                    .consensusPercentage(claimConsensus.getConsensusPercentage())
+                    .commonClaims(!commonClaims.isEmpty() ? String.join(", ", commonClaims) : "Diverse perspectives found")
+                    .segments(input.segments())
+                    .sourceVideoIds(input.sourceVideoIds())
+                    .revision(revision)
+                    .analyzedVideos(partials.size())
+                    .totalVideos(input.totalVideos())
+                    .complete(input.complete() || latePolicy == LatePolicy.IGNORE)
                     .build());
 
-            resultProducer.sendStatusUpdate(new StatusUpdateEvent(tid, "COMPLETED", "Final report generated."));
+            resultProducer.sendStatusUpdate(new StatusUpdateEvent(tid, "COMPLETED", revision == 1
+                    ? "Final report generated."
+                    : "Report revised with late sources (revision " + revision + ")."));
+            return true;
 
+        } catch (TopicDeadlineExceededException e) {
+            log.warn("Synthesis abandoned for topic {}: {}", tid, e.getMessage());
+            if (actor.ask(state -> state.publishedRevision == 0).join()) {
+                resultProducer.sendStatusUpdate(new StatusUpdateEvent(tid, "FAILED", "Deadline exceeded"));
+            }
         } catch (Exception e) {
             log.error("Synthesis failed: {}", e.getMessage());
-        } finally {
-            partialResultsMap.remove(tid);
-            allSegmentsMap.remove(tid);
         }
+        return false;
+    }
+
+    /**
+     * Degraded synthesis without an LLM call: the per-video summaries of the best supported
+     * sources, joined with the top claims, and the mean of the per-video sentiments.
+     */
+    private InternalAnalysisDTO synthesizeLocally(List<InternalAnalysisDTO> partials, ClaimConsensusDTO claimConsensus) {
+        StringBuilder summary = new StringBuilder();
+        partials.stream()
+                .map(InternalAnalysisDTO::getSummary)
+                .filter(Objects::nonNull)
+                .limit(MAX_LOCAL_SUMMARY_SOURCES)
+                .forEach(s -> summary.append(s.trim()).append(' '));
+
+        List<String> topClaims = claimConsensus.getClusters().stream()
+                .filter(c -> c.getSupport() >= 2)
+                .limit(MAX_LOCAL_SUMMARY_SOURCES)
+                .map(ClaimConsensusDTO.ClaimCluster::getRepresentative)
+                .toList();
+        if (!topClaims.isEmpty()) {
+            summary.append("Most sources agree: ").append(String.join("; ", topClaims)).append('.');
+        }
+
+        InternalAnalysisDTO result = new InternalAnalysisDTO();
+        result.setSummary(summary.toString().trim());
+        result.setSentiment(partials.stream()
+                .map(InternalAnalysisDTO::getSentiment)
+                .filter(Objects::nonNull)
+                .mapToDouble(Double::doubleValue)
+                .average()
+                .orElse(0.5));
+        return result;
+    }
+
+    /**
+     * Builds the synthesis input: one summary per source, then the deduplicated claim
+     * clusters with their support counts (capped at MAX_CLAIM_CLUSTERS_IN_PROMPT).
+     */
+    private String buildSynthesisContext(List<InternalAnalysisDTO> partials, ClaimConsensusDTO claimConsensus) {
+        StringBuilder context = new StringBuilder();
+        for (int i = 0; i < partials.size(); i++) {
+            context.append("Source ").append(i + 1).append(" Summary: ").append(partials.get(i).getSummary()).append('\n');
+        }
+
+        context.append("---\nClustered Claims (sources agreeing / ").append(claimConsensus.getSourceCount()).append("):\n");
+        claimConsensus.getClusters().stream()
+                .limit(MAX_CLAIM_CLUSTERS_IN_PROMPT)
+                .forEach(c -> context.append("- [").append(c.getSupport()).append("] ")
+                        .append(c.getRepresentative()).append('\n'));
+
+        log.debug("Synthesis context: {} claims reduced to {} clusters",
+                claimConsensus.getTotalClaims(), claimConsensus.getClusters().size());
+        return context.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.InternalAnalysisDTO;
+import com.vishal.aiyoutube.ai_analysis_service.dto.LlmCallContext;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AnalysisValidator enforces the parts of the schema that Jackson cannot:
+ * required fields and value ranges. Timestamps are not checked; they are
+ * resolved locally from the transcript by the TimestampResolver.
+ */
+@Service
+public class AnalysisValidator implements IAnalysisValidator {
+
+    @Override
+    public List<String> validate(InternalAnalysisDTO analysis, LlmCallContext.CallKind kind) {
+        List<String> errors = new ArrayList<>();
+        if (analysis == null) {
+            errors.add("response is not a JSON object");
+            return errors;
+        }
+
+        if (analysis.getSummary() == null || analysis.getSummary().isBlank()) {
+            errors.add("\"summary\" is missing or empty");
+        }
+
+        if (analysis.getSentiment() == null) {
+            errors.add("\"sentiment\" is missing");
+        } else if (analysis.getSentiment() < 0.0 || analysis.getSentiment() > 1.0) {
+            errors.add("\"sentiment\" is " + analysis.getSentiment() + " but must be between 0.0 and 1.0");
+        }
+
+        if (analysis.getConsensus() != null && (analysis.getConsensus() < 0.0 || analysis.getConsensus() > 100.0)) {
+            errors.add("\"consensus\" is " + analysis.getConsensus() + " but must be between 0 and 100");
+        }
+
+        // Synthesis output leaves claims and highlights empty by design
+        if (kind == LlmCallContext.CallKind.SYNTHESIS) return errors;
+
+        if (analysis.getClaims() == null) {
+            errors.add("\"claims\" is missing");
+        }
+
+        if (analysis.getHighlights() == null) {
+            errors.add("\"highlights\" is missing");
+            return errors;
+        }
+
+        for (int i = 0; i < analysis.getHighlights().size(); i++) {
+            InternalAnalysisDTO.Highlight highlight = analysis.getHighlights().get(i);
+            String path = "\"highlights[" + i + "]";
+            if (highlight == null) {
+                errors.add(path + "\" is null");
+                continue;
+            }
+            if (highlight.getExplanation() == null || highlight.getExplanation().isBlank()) {
+                errors.add(path + ".explanation\" is missing or empty");
+            }
+            if (highlight.getShortSummary() == null || highlight.getShortSummary().isBlank()) {
+                errors.add(path + ".shortSummary\" is missing or empty");
+            }
+        }
+        return errors;
+    }
+}
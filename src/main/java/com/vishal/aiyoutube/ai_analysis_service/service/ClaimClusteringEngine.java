@@ -0,0 +1,232 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.ClaimConsensusDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * ClaimClusteringEngine groups near-duplicate claims locally, before the final synthesis.
+ * * KEY ARCHITECTURAL FEATURES:
+ * 1. Normalization: Claims are lower-cased, stripped of punctuation and stop words and
+ * lightly stemmed, so "Inflation is rising." and "inflation rises" share tokens.
+ * 2. MinHash + LSH: Each claim gets a 64-value MinHash signature over its token set.
+ * Banding the signature finds candidate pairs without comparing every claim to every other.
+ * 3. Verification: Candidates are merged (union-find) only when their estimated Jaccard
+ * similarity reaches analysis.claims.similarity-threshold.
+ * 4. Deterministic Consensus: Support per cluster is the number of distinct sources in it;
+ * the consensus percentage is the share of all claims corroborated by another source.
+ */
+@Slf4j
+@Service
+public class ClaimClusteringEngine implements IClaimClusteringEngine {
+
+    private static final int NUM_HASHES = 64;
+    private static final int BANDS = 32;
+    private static final int ROWS_PER_BAND = NUM_HASHES / BANDS;
+
+    private static final long[] HASH_SEEDS = new long[NUM_HASHES];
+
+    static {
+        long seed = 0x5DEECE66DL;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            seed = mix64(seed + 0x9E3779B97F4A7C15L);
+            HASH_SEEDS[i] = seed;
+        }
+    }
+
+    /** Minimum estimated Jaccard similarity for two claims to be considered the same claim. */
+    @Value("${analysis.claims.similarity-threshold:0.5}")
+    private double similarityThreshold;
+
+    @Override
+    public ClaimConsensusDTO cluster(List<List<String>> claimsBySource) {
+        List<String> claims = new ArrayList<>();
+        List<Integer> sourceOf = new ArrayList<>();
+        List<long[]> signatures = new ArrayList<>();
+        Set<Integer> contributingSources = new HashSet<>();
+
+        for (int source = 0; source < claimsBySource.size(); source++) {
+            List<String> sourceClaims = claimsBySource.get(source);
+            if (sourceClaims == null) continue;
+
+            for (String claim : sourceClaims) {
+                Set<String> tokens = tokenize(claim);
+                if (tokens.isEmpty()) continue;
+
+                claims.add(claim.trim());
+                sourceOf.add(source);
+                signatures.add(minHash(tokens));
+                contributingSources.add(source);
+            }
+        }
+
+        int[] parent = new int[claims.size()];
+        for (int i = 0; i < parent.length; i++) parent[i] = i;
+
+        // LSH banding: claims sharing any band bucket become candidate pairs
+        for (int band = 0; band < BANDS; band++) {
+            Map<Long, List<Integer>> buckets = new HashMap<>();
+            for (int i = 0; i < signatures.size(); i++) {
+                buckets.computeIfAbsent(bandKey(signatures.get(i), band), k -> new ArrayList<>()).add(i);
+            }
+            for (List<Integer> bucket : buckets.values()) {
+                for (int a = 0; a < bucket.size(); a++) {
+                    for (int b = a + 1; b < bucket.size(); b++) {
+                        int x = bucket.get(a);
+                        int y = bucket.get(b);
+                        if (find(parent, x) != find(parent, y)
+                                && similarity(signatures.get(x), signatures.get(y)) >= similarityThreshold) {
+                            union(parent, x, y);
+                        }
+                    }
+                }
+            }
+        }
+
+        // Collect members per root, in first-appearance order for determinism
+        Map<Integer, List<Integer>> membersByRoot = new LinkedHashMap<>();
+        for (int i = 0; i < claims.size(); i++) {
+            membersByRoot.computeIfAbsent(find(parent, i), k -> new ArrayList<>()).add(i);
+        }
+
+        List<ClaimConsensusDTO.ClaimCluster> clusters = new ArrayList<>();
+        int corroboratedClaims = 0;
+        for (List<Integer> members : membersByRoot.values()) {
+            Set<Integer> sources = new HashSet<>();
+            members.forEach(m -> sources.add(sourceOf.get(m)));
+            if (sources.size() >= 2) corroboratedClaims += members.size();
+
+            clusters.add(ClaimConsensusDTO.ClaimCluster.builder()
+                    .representative(claims.get(pickRepresentative(members, signatures)))
+                    .support(sources.size())
+                    .size(members.size())
+                    .build());
+        }
+        // Stable sort keeps first-appearance order among equally supported clusters
+        clusters.sort(Comparator.comparingInt(ClaimConsensusDTO.ClaimCluster::getSupport)
+                .thenComparingInt(ClaimConsensusDTO.ClaimCluster::getSize)
+                .reversed());
+
+        double consensus;
+        if (claims.isEmpty()) {
+            consensus = 0.0;
+        } else if (contributingSources.size() < 2) {
+            // A single source cannot disagree with itself
+            consensus = 100.0;
+        } else {
+            consensus = Math.round(1000.0 * corroboratedClaims / claims.size()) / 10.0;
+        }
+
+        log.debug("Clustered {} claims from {} sources into {} clusters (consensus {}%)",
+                claims.size(), contributingSources.size(), clusters.size(), consensus);
+
+        return ClaimConsensusDTO.builder()
+                .sourceCount(contributingSources.size())
+                .totalClaims(claims.size())
+                .consensusPercentage(consensus)
+                .clusters(clusters)
+                .build();
+    }
+
+    /**
+     * Normalizes a claim into its set of content tokens.
+     */
+    private static Set<String> tokenize(String claim) {
+        if (claim == null || claim.isBlank()) return Set.of();
+
+        Set<String> tokens = new LinkedHashSet<>();
+        Set<String> fallback = new LinkedHashSet<>();
+        for (String word : TextTokens.words(claim)) {
+            String stem = TextTokens.stem(word);
+            fallback.add(stem);
+            if (TextTokens.isContentWord(word)) tokens.add(stem);
+        }
+        // Claims made only of stop words still deserve a signature
+        return tokens.isEmpty() ? fallback : tokens;
+    }
+
+    private static long[] minHash(Set<String> tokens) {
+        long[] signature = new long[NUM_HASHES];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (String token : tokens) {
+            long base = fnv1a64(token);
+            for (int i = 0; i < NUM_HASHES; i++) {
+                long h = mix64(base ^ HASH_SEEDS[i]);
+                if (h < signature[i]) signature[i] = h;
+            }
+        }
+        return signature;
+    }
+
+    private static long bandKey(long[] signature, int band) {
+        long key = band;
+        for (int r = 0; r < ROWS_PER_BAND; r++) {
+            key = mix64(key * 31 + signature[band * ROWS_PER_BAND + r]);
+        }
+        return key;
+    }
+
+    /**
+     * Estimated Jaccard similarity: the fraction of matching MinHash values.
+     */
+    private static double similarity(long[] a, long[] b) {
+        int matches = 0;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (a[i] == b[i]) matches++;
+        }
+        return (double) matches / NUM_HASHES;
+    }
+
+    /**
+     * The medoid: the member most similar to all other members (earliest wins ties).
+     */
+    private static int pickRepresentative(List<Integer> members, List<long[]> signatures) {
+        int best = members.get(0);
+        double bestScore = -1;
+        for (int candidate : members) {
+            double score = 0;
+            for (int other : members) {
+                if (other != candidate) score += similarity(signatures.get(candidate), signatures.get(other));
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        // Attach to the smaller index so roots follow first appearance
+        if (rootA < rootB) parent[rootB] = rootA;
+        else parent[rootA] = rootB;
+    }
+
+    private static long fnv1a64(String s) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            hash ^= s.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
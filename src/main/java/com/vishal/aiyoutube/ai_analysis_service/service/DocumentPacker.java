@@ -0,0 +1,236 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.InternalAnalysisDTO;
+import com.vishal.aiyoutube.ai_analysis_service.dto.LlmCallContext;
+import com.vishal.aiyoutube.ai_analysis_service.dto.VideoDataProcessedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * DocumentPacker batches short transcripts into one Groq request.
+ * * KEY ARCHITECTURAL FEATURES:
+ * 1. Shared Overhead: The system prompt, JSON schema and instructions are sent once per
+ * batch instead of once per video, which also lowers request count and rate-limit pressure.
+ * 2. Keyed Results: The packed response is a JSON object keyed by videoId and is split
+ * back into one InternalAnalysisDTO per video; topics may be mixed freely in a batch.
+ * 3. Bounded Waiting: A batch is sent as soon as it is full (documents or characters) or
+ * analysis.packing.max-wait-ms after its first video arrived, whichever comes first.
+ * 4. Safe Fallback: A batch of one, a failed call, or a videoId missing from the answer
+ * yields null, and the caller re-runs that video as an individual request.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentPacker implements IDocumentPacker {
+
+    private final IAIProcessorService aiProcessor;
+    private final IPromptEngine promptEngine;
+
+    @Value("${analysis.packing.enabled}")
+    private boolean enabled;
+
+    /** Longest transcript (in characters) that is still considered short enough to pack. */
+    @Value("${analysis.packing.max-document-chars}")
+    private int maxDocumentChars;
+
+    /** Upper bound for the combined transcript characters of one batch. */
+    @Value("${analysis.packing.max-batch-chars}")
+    private int maxBatchChars;
+
+    @Value("${analysis.packing.max-documents}")
+    private int maxDocuments;
+
+    @Value("${analysis.packing.max-wait-ms}")
+    private long maxWaitMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private Batch openBatch;
+
+    private ScheduledExecutorService timer;
+    private ExecutorService flushExecutor;
+
+    @PostConstruct
+    void start() {
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "document-packer-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        flushExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+        if (enabled) {
+            log.info("Document packing enabled: maxDocuments={}, maxBatchChars={}, maxWaitMs={}",
+                    maxDocuments, maxBatchChars, maxWaitMs);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        timer.shutdownNow();
+        flushExecutor.shutdownNow();
+    }
+
+    @Override
+    public boolean accepts(VideoDataProcessedEvent.VideoTranscriptData video) {
+        return enabled && maxDocuments > 1 && video.getVideoId() != null
+                && transcriptChars(video) <= maxDocumentChars;
+    }
+
+    @Override
+    public InternalAnalysisDTO analyze(LlmCallContext context, VideoDataProcessedEvent.VideoTranscriptData video) {
+        Member member = new Member(context, video, transcriptChars(video));
+        Batch toFlushHere = null;
+
+        lock.lock();
+        try {
+            // The response is keyed by videoId, so a batch can only hold each video once
+            if (openBatch != null && openBatch.containsVideo(video.getVideoId())) {
+                return null;
+            }
+
+            if (openBatch != null && openBatch.chars + member.chars > maxBatchChars) {
+                Batch overflowing = detach();
+                flushExecutor.execute(() -> flush(overflowing));
+            }
+
+            if (openBatch == null) {
+                Batch created = new Batch();
+                created.timeout = timer.schedule(() -> onTimeout(created), maxWaitMs, TimeUnit.MILLISECONDS);
+                openBatch = created;
+            }
+
+            openBatch.add(member);
+
+            if (openBatch.members.size() >= maxDocuments || openBatch.chars >= maxBatchChars) {
+                toFlushHere = detach();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // The caller that completes a batch sends it, so no hand-off is needed on the hot path
+        if (toFlushHere != null) {
+            flush(toFlushHere);
+        }
+
+        try {
+            return member.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private void onTimeout(Batch batch) {
+        lock.lock();
+        try {
+            // Already sent because it filled up
+            if (openBatch != batch) return;
+            detach();
+        } finally {
+            lock.unlock();
+        }
+        flushExecutor.execute(() -> flush(batch));
+    }
+
+    /**
+     * Closes the open batch. Must be called while holding the lock.
+     */
+    private Batch detach() {
+        Batch batch = openBatch;
+        openBatch = null;
+        batch.timeout.cancel(false);
+        return batch;
+    }
+
+    private void flush(Batch batch) {
+        if (batch.members.size() < 2) {
+            batch.completeAll(Map.of());
+            return;
+        }
+
+        List<VideoDataProcessedEvent.VideoTranscriptData> videos = batch.members.stream()
+                .map(m -> m.video)
+                .toList();
+
+        // The batch is scheduled as urgently as its most urgent member
+        LlmCallContext context = batch.members.stream()
+                .map(m -> m.context)
+                .max(Comparator.comparingDouble(LlmCallContext::progress))
+                .orElseThrow();
+
+        // The batch's tokens are charged to its topics by transcript length
+        Map<UUID, Integer> topicShares = new LinkedHashMap<>();
+        for (Member member : batch.members) {
+            if (member.context.getTopicId() != null) {
+                topicShares.merge(member.context.getTopicId(), Math.max(1, member.chars), Integer::sum);
+            }
+        }
+
+        try {
+            Map<String, InternalAnalysisDTO> results = aiProcessor.analyzePackedTranscripts(context, videos.size(),
+                    topicShares, out -> promptEngine.writePackedAnalysisPrompt(videos, maxDocumentChars, out));
+
+            log.info("Packed analysis answered {}/{} videos in one request", results.size(), videos.size());
+            batch.completeAll(results);
+        } catch (Exception e) {
+            log.warn("Packed analysis of {} videos failed, falling back to individual requests: {}",
+                    videos.size(), e.getMessage());
+            batch.completeAll(Map.of());
+        }
+    }
+
+    private static int transcriptChars(VideoDataProcessedEvent.VideoTranscriptData video) {
+        if (video.getSegments() == null) return 0;
+        int chars = 0;
+        for (VideoDataProcessedEvent.TranscriptSegmentDTO segment : video.getSegments()) {
+            if (segment.getText() != null) chars += segment.getText().length() + 1;
+        }
+        return chars;
+    }
+
+    private static final class Member {
+        private final LlmCallContext context;
+        private final VideoDataProcessedEvent.VideoTranscriptData video;
+        private final int chars;
+        private final CompletableFuture<InternalAnalysisDTO> result = new CompletableFuture<>();
+
+        private Member(LlmCallContext context, VideoDataProcessedEvent.VideoTranscriptData video, int chars) {
+            this.context = context;
+            this.video = video;
+            this.chars = chars;
+        }
+    }
+
+    private static final class Batch {
+        private final List<Member> members = new ArrayList<>();
+        private int chars;
+        private ScheduledFuture<?> timeout;
+
+        private void add(Member member) {
+            members.add(member);
+            chars += member.chars;
+        }
+
+        private boolean containsVideo(String videoId) {
+            return members.stream().anyMatch(m -> videoId.equals(m.video.getVideoId()));
+        }
+
+        private void completeAll(Map<String, InternalAnalysisDTO> results) {
+            for (Member member : members) {
+                InternalAnalysisDTO analysis = results.get(member.video.getVideoId());
+                member.result.complete(analysis != null && analysis.getHighlights() != null ? analysis : null);
+            }
+        }
+    }
+}
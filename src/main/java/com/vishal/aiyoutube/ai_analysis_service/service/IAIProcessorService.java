@@ -1,6 +1,11 @@
 package com.vishal.aiyoutube.ai_analysis_service.service;
 
+import com.vishal.aiyoutube.ai_analysis_service.config.GrokRequestEncoder;
 import com.vishal.aiyoutube.ai_analysis_service.dto.InternalAnalysisDTO;
+import com.vishal.aiyoutube.ai_analysis_service.dto.LlmCallContext;
+
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * Interface for AI Processing operations.
@@ -11,8 +16,31 @@ public interface IAIProcessorService {
 
     /**
      * Executes the analysis of transcripts with built-in error handling and retries.
+     * @param context Topic and stage of the call, used to prioritize it against other calls.
      * @param prompt The combined user prompt containing video transcripts.
      * @return A mapped InternalAnalysisDTO object.
      */
-    InternalAnalysisDTO analyzeTranscripts(String prompt);
+    InternalAnalysisDTO analyzeTranscripts(LlmCallContext context, String prompt);
+
+    /**
+     * Same as {@link #analyzeTranscripts(LlmCallContext, String)}, but the prompt is written
+     * directly into the request body. The writer is invoked once per attempt.
+     * @param context Topic and stage of the call, used to prioritize it against other calls.
+     * @param prompt Writer producing the user prompt (template plus transcript).
+     * @return A mapped InternalAnalysisDTO object.
+     */
+    InternalAnalysisDTO analyzeTranscripts(LlmCallContext context, GrokRequestEncoder.PromptWriter prompt);
+
+    /**
+     * Analyzes several videos in one request.
+     * @param context Call context used for scheduling (typically the most urgent member's).
+     * @param documents Number of videos in the prompt; bounds the length of the answer.
+     * @param topicShares Transcript characters per topic in the batch; the call's token usage is split by them.
+     * @param prompt Writer producing the packed prompt (one section per videoId).
+     * @return One InternalAnalysisDTO per videoId found in the response.
+     */
+    Map<String, InternalAnalysisDTO> analyzePackedTranscripts(LlmCallContext context,
+                                                              int documents,
+                                                              Map<UUID, Integer> topicShares,
+                                                              GrokRequestEncoder.PromptWriter prompt);
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.vishal.aiyoutube.ai_analysis_service.service;
 
 import com.vishal.aiyoutube.ai_analysis_service.dto.VideoDataProcessedEvent;
+import com.vishal.aiyoutube.ai_analysis_service.dto.VideoEventHeaders;
+
 import java.util.UUID;
 
 /**
@@ -13,5 +15,29 @@ public interface IAnalysisOrchestrator {
      * Processes an incoming video data event, manages state, and triggers final synthesis.
      * @param event The processed video data from the YouTube service.
      */
-    void processAnalysis(VideoDataProcessedEvent event);
+    default void processAnalysis(VideoDataProcessedEvent event) {
+        processAnalysis(event, VideoEventHeaders.empty());
+    }
+
+    /**
+     * Same as {@link #processAnalysis(VideoDataProcessedEvent)}, with the Kafka header metadata
+     * (e.g., tenant) that accompanied the event.
+     * @param event The processed video data from the YouTube service.
+     * @param headers Optional metadata from the record headers.
+     */
+    void processAnalysis(VideoDataProcessedEvent event, VideoEventHeaders headers);
+
+    /**
+     * True while the topic is being aggregated here, i.e. it has state that would be lost
+     * if the instance stopped now. Offsets of such topics must not be committed yet.
+     * @param topicId The research topic.
+     */
+    boolean isTopicOpen(UUID topicId);
+
+    /**
+     * Drops the topic's in-memory state without reporting anything, because its partition
+     * was reassigned and the new owner rebuilds the topic from the uncommitted events.
+     * @param topicId The research topic.
+     */
+    void releaseTopic(UUID topicId);
 }
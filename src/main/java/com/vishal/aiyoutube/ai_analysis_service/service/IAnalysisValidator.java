@@ -0,0 +1,19 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.InternalAnalysisDTO;
+import com.vishal.aiyoutube.ai_analysis_service.dto.LlmCallContext;
+
+import java.util.List;
+
+/**
+ * Interface for checking parsed LLM output against the InternalAnalysisDTO contract.
+ */
+public interface IAnalysisValidator {
+
+    /**
+     * @param analysis The parsed model output.
+     * @param kind Pipeline stage that produced it; synthesis output carries no highlights or claims.
+     * @return Human-readable violations (fed back to the model in a repair request); empty when valid.
+     */
+    List<String> validate(InternalAnalysisDTO analysis, LlmCallContext.CallKind kind);
+}
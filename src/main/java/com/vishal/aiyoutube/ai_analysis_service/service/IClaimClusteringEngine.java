@@ -0,0 +1,19 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.ClaimConsensusDTO;
+
+import java.util.List;
+
+/**
+ * Interface for local (LLM-free) claim deduplication.
+ * Groups near-duplicate claims across sources and computes support counts.
+ */
+public interface IClaimClusteringEngine {
+
+    /**
+     * Clusters the claims of several independent sources.
+     * @param claimsBySource One list of claims per source (partial analysis).
+     * @return The deduplicated clusters and the derived consensus percentage.
+     */
+    ClaimConsensusDTO cluster(List<List<String>> claimsBySource);
+}
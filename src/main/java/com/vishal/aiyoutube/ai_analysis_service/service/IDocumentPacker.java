@@ -0,0 +1,25 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.InternalAnalysisDTO;
+import com.vishal.aiyoutube.ai_analysis_service.dto.LlmCallContext;
+import com.vishal.aiyoutube.ai_analysis_service.dto.VideoDataProcessedEvent;
+
+/**
+ * Interface for combining several short videos into a single Stage 1 LLM request.
+ */
+public interface IDocumentPacker {
+
+    /**
+     * @return true when packing is enabled and the video is short enough to share a request.
+     */
+    boolean accepts(VideoDataProcessedEvent.VideoTranscriptData video);
+
+    /**
+     * Adds the video to the current batch and blocks until the batch has been analyzed.
+     * @param context Call context of the video's topic.
+     * @param video The (short) video to analyze.
+     * @return The video's analysis, or null when it could not be packed; the caller then
+     * analyzes it with an individual request.
+     */
+    InternalAnalysisDTO analyze(LlmCallContext context, VideoDataProcessedEvent.VideoTranscriptData video);
+}
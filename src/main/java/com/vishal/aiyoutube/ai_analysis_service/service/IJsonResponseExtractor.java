@@ -0,0 +1,17 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.JsonExtractionResult;
+
+/**
+ * Interface for pulling a parseable JSON object out of raw LLM output.
+ */
+public interface IJsonResponseExtractor {
+
+    /**
+     * Extracts the first JSON object from the response and repairs common defects.
+     * @param rawResponse Raw model output (may contain fences, prose or a truncated tail).
+     * @return The JSON text together with the repairs that were applied.
+     * @throws RuntimeException if the response contains no JSON object at all.
+     */
+    JsonExtractionResult extract(String rawResponse);
+}
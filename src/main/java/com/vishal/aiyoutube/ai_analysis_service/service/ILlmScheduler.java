@@ -0,0 +1,30 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.LlmCallContext;
+
+import java.util.function.Supplier;
+
+/**
+ * Interface for the scheduler that sits in front of GrokClient.
+ * Decides the order in which competing LLM calls get one of the limited call slots.
+ */
+public interface ILlmScheduler {
+
+    /**
+     * Queues the call with a priority derived from its context and blocks until it has run.
+     * @param context Topic, stage and progress of the caller.
+     * @param call The LLM call to execute once a slot is free.
+     * @return The call's result.
+     */
+    <T> T execute(LlmCallContext context, Supplier<T> call);
+
+    /**
+     * Number of calls waiting for a slot.
+     */
+    int getQueueDepth();
+
+    /**
+     * Number of calls currently running.
+     */
+    int getInFlight();
+}
@@ -1,5 +1,10 @@
 package com.vishal.aiyoutube.ai_analysis_service.service;
 
+import com.vishal.aiyoutube.ai_analysis_service.config.GrokRequestEncoder;
+import com.vishal.aiyoutube.ai_analysis_service.dto.VideoDataProcessedEvent;
+
+import java.util.List;
+
 /**
  * Interface for generating LLM instructions.
  * Encapsulates the prompt engineering logic to ensure consistent
@@ -7,13 +12,42 @@ package com.vishal.aiyoutube.ai_analysis_service.service;
  */
 public interface IPromptEngine {
 
+    /**
+     * Highlights requested per video in Stage 1; also sizes the output bound of those calls.
+     */
+    int HIGHLIGHTS_PER_VIDEO = 2;
+
     /**
      * Builds the prompt for analyzing an individual video transcript.
      */
     String buildAnalysisPrompt(String context);
 
+    /**
+     * Writes the individual video prompt straight into a request body, streaming the
+     * transcript segments instead of joining them into one String first.
+     */
+    void writeAnalysisPrompt(List<VideoDataProcessedEvent.TranscriptSegmentDTO> segments,
+                             int maxTranscriptChars,
+                             GrokRequestEncoder.ContentWriter out);
+
+    /**
+     * Writes one prompt covering several short videos, each marked with its videoId,
+     * so a single request can analyze all of them.
+     */
+    void writePackedAnalysisPrompt(List<VideoDataProcessedEvent.VideoTranscriptData> videos,
+                                   int maxTranscriptCharsPerVideo,
+                                   GrokRequestEncoder.ContentWriter out);
+
     /**
      * Builds the prompt for synthesizing multiple partial summaries into a final report.
      */
     String buildGlobalSynthesisPrompt(String partialSummaries);
-}
\ No newline at end of file
+
+    /**
+     * Builds a small repair request: the broken JSON plus the validation errors, without the transcript.
+     * @param brokenJson The model's previous (parseable or not) JSON output.
+     * @param errors Violations found by the validator or the parser.
+     * @return The user prompt for the repair call.
+     */
+    String buildRepairPrompt(String brokenJson, List<String> errors);
+}
@@ -0,0 +1,22 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.InternalAnalysisDTO;
+import com.vishal.aiyoutube.ai_analysis_service.dto.VideoDataProcessedEvent;
+
+import java.util.List;
+
+/**
+ * Interface for locating highlights in the transcript without asking the LLM for timestamps.
+ */
+public interface ITimestampResolver {
+
+    /**
+     * Finds the segment each highlight talks about and returns its real start time.
+     * @param segments The video's transcript segments (with start offsets).
+     * @param highlights Highlights produced by the analysis of that video.
+     * @return One video offset ("mm:ss" or "h:mm:ss") per highlight, in the same order;
+     * "00:00" where nothing in the transcript matches.
+     */
+    List<String> resolve(List<VideoDataProcessedEvent.TranscriptSegmentDTO> segments,
+                         List<InternalAnalysisDTO.Highlight> highlights);
+}
@@ -0,0 +1,58 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.ModelTokenUsageDTO;
+import com.vishal.aiyoutube.ai_analysis_service.dto.TokenBudgetMode;
+import com.vishal.aiyoutube.ai_analysis_service.dto.TopicTokenUsageDTO;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Interface for the token accounting of LLM calls.
+ * Keeps per-topic and per-model totals and turns a topic's budget share into a degraded mode.
+ */
+public interface ITokenUsageLedger {
+
+    /**
+     * Adds the usage reported by one Groq response.
+     * @param topicId Topic the call was made for; null for calls not made for a topic.
+     * @param model Model the call was sent to.
+     */
+    void record(UUID topicId, String model, int promptTokens, int completionTokens);
+
+    /**
+     * Adds the usage of one call made for several topics (a packed request), split across
+     * the topics in proportion to their weights. The model is charged once.
+     * @param weights Share of each topic in the request, e.g. its transcript characters.
+     */
+    void recordShared(Map<UUID, Integer> weights, String model, int promptTokens, int completionTokens);
+
+    /**
+     * The mode the topic's next calls should run in.
+     */
+    TokenBudgetMode modeFor(UUID topicId);
+
+    /**
+     * Transcript window for Stage 1 in the given mode.
+     * @param defaultChars Window used while the topic is within budget.
+     */
+    int transcriptChars(TokenBudgetMode mode, int defaultChars);
+
+    /**
+     * Model override for the given mode; null to use the configured default model.
+     */
+    String modelFor(TokenBudgetMode mode);
+
+    /**
+     * @return The topic's usage, or null when no call was recorded for it (or it was forgotten).
+     */
+    TopicTokenUsageDTO topicUsage(UUID topicId);
+
+    /**
+     * Topics ordered by total tokens, largest first.
+     */
+    List<TopicTokenUsageDTO> topTopics(int limit);
+
+    List<ModelTokenUsageDTO> modelUsage();
+}
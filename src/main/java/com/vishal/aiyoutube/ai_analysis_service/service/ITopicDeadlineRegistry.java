@@ -0,0 +1,65 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Future;
+
+/**
+ * Interface for tracking each topic's time budget and the LLM calls running on its behalf.
+ */
+public interface ITopicDeadlineRegistry {
+
+    /**
+     * Starts (or updates) the budget of a topic.
+     * @param topicId The research topic.
+     * @param requestedDeadline Deadline carried by the event, or null to use the configured default.
+     * @return false if the topic was already closed (failed, expired or finalized).
+     */
+    boolean open(UUID topicId, Instant requestedDeadline);
+
+    /**
+     * Time left for the topic; null when the topic has no deadline.
+     * @throws TopicDeadlineExceededException if the deadline passed or the topic is closed.
+     */
+    Duration remaining(UUID topicId);
+
+    /**
+     * Checks that the topic may still spend time; a null topicId always may.
+     * @throws TopicDeadlineExceededException if the deadline passed or the topic is closed.
+     */
+    void ensureOpen(UUID topicId);
+
+    /**
+     * Registers an in-flight call so it can be cancelled when the topic closes.
+     * @return Handle that unregisters the call once it has finished.
+     */
+    AutoCloseable track(UUID topicId, Future<?> call);
+
+    /**
+     * Closes the topic and cancels its outstanding calls (finalized or failed).
+     * @return true if this call closed it, false if it was already closed.
+     */
+    boolean close(UUID topicId);
+
+    /**
+     * Records that another instance closed the topic, so replayed events of it are dropped here too.
+     * @param topicId The research topic.
+     * @param closedAt When the topic was closed; the tombstone expires relative to it.
+     */
+    void markClosed(UUID topicId, Instant closedAt);
+
+    /**
+     * Forgets the topic without closing it, because its partition moved to another instance.
+     * Outstanding calls are cancelled, but no tombstone is left, so the topic can be opened
+     * again if the partition comes back.
+     */
+    void release(UUID topicId);
+
+    /**
+     * Closes every topic whose deadline has passed and cancels their calls.
+     * @return The topics that expired in this sweep.
+     */
+    List<UUID> expireOverdue();
+}
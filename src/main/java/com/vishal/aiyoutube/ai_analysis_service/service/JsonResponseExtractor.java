@@ -0,0 +1,196 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.JsonExtractionResult;
+import com.vishal.aiyoutube.ai_analysis_service.dto.JsonExtractionResult.Repair;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * JsonResponseExtractor turns raw model output into JSON that Jackson accepts.
+ * * KEY ARCHITECTURAL FEATURES:
+ * 1. Single Pass: One scan over the response tracks bracket depth and string/escape
+ * state, so braces inside string values never confuse the extraction.
+ * 2. First Complete Object: Scanning stops when the first object is balanced; fences,
+ * prose or further objects around it are ignored.
+ * 3. In-Flight Repairs: Trailing commas, raw control characters in strings, mismatched
+ * closers and a truncated tail (open string, dangling comma/colon, unclosed brackets)
+ * are fixed while copying, and every repair is reported to the caller.
+ * 4. No Guessing: Anything it cannot fix is left to Jackson, which then fails as before.
+ */
+@Service
+public class JsonResponseExtractor implements IJsonResponseExtractor {
+
+    private static final String CODE_FENCE = "```";
+
+    @Override
+    public JsonExtractionResult extract(String rawResponse) {
+        if (rawResponse == null || rawResponse.isEmpty()) throw new RuntimeException("Empty AI response");
+
+        int start = rawResponse.indexOf('{');
+        if (start == -1) throw new RuntimeException("No JSON object in AI response");
+
+        List<Repair> repairs = new ArrayList<>();
+        if (rawResponse.lastIndexOf(CODE_FENCE, start) != -1) {
+            repairs.add(Repair.CODE_FENCE_STRIPPED);
+        }
+
+        StringBuilder out = new StringBuilder(rawResponse.length() - start);
+        Deque<Character> open = new ArrayDeque<>();
+        boolean inString = false;
+        boolean escaped = false;
+        int end = rawResponse.length();
+
+        for (int i = start; i < rawResponse.length(); i++) {
+            char c = rawResponse.charAt(i);
+
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                    out.append(c);
+                } else if (c == '\\') {
+                    escaped = true;
+                    out.append(c);
+                } else if (c == '"') {
+                    inString = false;
+                    out.append(c);
+                } else if (c < 0x20) {
+                    appendEscapedControl(out, c);
+                    addOnce(repairs, Repair.CONTROL_CHARACTER_ESCAPED);
+                } else {
+                    out.append(c);
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '"' -> {
+                    inString = true;
+                    out.append(c);
+                }
+                case '{' -> {
+                    open.push('}');
+                    out.append(c);
+                }
+                case '[' -> {
+                    open.push(']');
+                    out.append(c);
+                }
+                case '}', ']' -> {
+                    if (!open.contains(c)) continue; // stray closer, nothing to close
+                    if (removeTrailingComma(out)) addOnce(repairs, Repair.TRAILING_COMMA_REMOVED);
+                    while (open.peek() != c) {
+                        out.append(open.pop());
+                        addOnce(repairs, Repair.MISMATCHED_BRACKET_FIXED);
+                    }
+                    out.append(open.pop());
+                }
+                default -> out.append(c);
+            }
+
+            if (open.isEmpty()) {
+                end = i + 1;
+                break;
+            }
+        }
+
+        if (open.isEmpty()) {
+            String rest = rawResponse.substring(end).strip();
+            if (rest.startsWith(CODE_FENCE)) {
+                addOnce(repairs, Repair.CODE_FENCE_STRIPPED);
+                rest = rest.substring(CODE_FENCE.length()).strip();
+            }
+            if (!rest.isEmpty()) repairs.add(Repair.TRAILING_TEXT_DROPPED);
+        } else {
+            closeTruncated(out, open, inString, escaped, repairs);
+        }
+
+        return JsonExtractionResult.builder()
+                .json(out.toString())
+                .repairs(List.copyOf(repairs))
+                .build();
+    }
+
+    /**
+     * Finishes output that stopped mid-object: closes the string, drops a dangling
+     * separator and appends the missing closers in order.
+     */
+    private static void closeTruncated(StringBuilder out, Deque<Character> open,
+                                       boolean inString, boolean escaped, List<Repair> repairs) {
+        if (inString) {
+            if (escaped) out.setLength(out.length() - 1);
+            out.append('"');
+            repairs.add(Repair.TRUNCATED_STRING_CLOSED);
+        }
+
+        trimTrailingWhitespace(out);
+        if (endsWith(out, ',')) {
+            out.setLength(out.length() - 1);
+        } else if (endsWith(out, ':')) {
+            // A key without a value
+            out.append("null");
+        } else if (open.peek() == '}' && endsWithKeyWithoutColon(out)) {
+            out.append(":null");
+        }
+
+        while (!open.isEmpty()) {
+            out.append(open.pop());
+        }
+        repairs.add(Repair.TRUNCATED_BRACKETS_CLOSED);
+    }
+
+    /**
+     * True when the last token in the current object is a string directly after '{' or ','.
+     */
+    private static boolean endsWithKeyWithoutColon(StringBuilder out) {
+        if (!endsWith(out, '"')) return false;
+        int i = out.length() - 2;
+        while (i >= 0) {
+            char c = out.charAt(i);
+            if (c == '"' && (i == 0 || out.charAt(i - 1) != '\\')) break;
+            i--;
+        }
+        for (int j = i - 1; j >= 0; j--) {
+            char c = out.charAt(j);
+            if (Character.isWhitespace(c)) continue;
+            return c == '{' || c == ',';
+        }
+        return false;
+    }
+
+    private static boolean removeTrailingComma(StringBuilder out) {
+        int i = out.length() - 1;
+        while (i >= 0 && Character.isWhitespace(out.charAt(i))) i--;
+        if (i >= 0 && out.charAt(i) == ',') {
+            out.deleteCharAt(i);
+            return true;
+        }
+        return false;
+    }
+
+    private static void trimTrailingWhitespace(StringBuilder out) {
+        int len = out.length();
+        while (len > 0 && Character.isWhitespace(out.charAt(len - 1))) len--;
+        out.setLength(len);
+    }
+
+    private static boolean endsWith(StringBuilder out, char c) {
+        return !out.isEmpty() && out.charAt(out.length() - 1) == c;
+    }
+
+    private static void appendEscapedControl(StringBuilder out, char c) {
+        switch (c) {
+            case '\n' -> out.append("\\n");
+            case '\r' -> out.append("\\r");
+            case '\t' -> out.append("\\t");
+            default -> out.append(String.format("\\u%04x", (int) c));
+        }
+    }
+
+    private static void addOnce(List<Repair> repairs, Repair repair) {
+        if (!repairs.contains(repair)) repairs.add(repair);
+    }
+}
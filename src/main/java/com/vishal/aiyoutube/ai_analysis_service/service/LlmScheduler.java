@@ -0,0 +1,204 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.LlmCallContext;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * LlmScheduler decides which waiting LLM call gets the next Groq slot.
+ * * KEY ARCHITECTURAL FEATURES:
+ * 1. Bounded Concurrency: At most analysis.scheduler.max-concurrency calls run at once;
+ * everything else waits in a priority queue instead of racing for connections.
+ * 2. Virtual Deadlines: Each call is ranked by its enqueue time minus a priority boost.
+ * Synthesis calls and topics close to completion (currentCount / totalVideos) get the
+ * largest boosts, scaled by an optional tenant weight.
+ * 3. Fair Sharing: Every call a topic already has outstanding pushes its next call back,
+ * so one large backfill cannot monopolize the slots.
+ * 4. No Starvation: Boosts and penalties are bounded, so any call eventually becomes the
+ * oldest virtual deadline in the queue and runs.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LlmScheduler implements ILlmScheduler {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${analysis.scheduler.max-concurrency}")
+    private int maxConcurrency;
+
+    /** Head start (ms of virtual time) granted to synthesis calls. */
+    @Value("${analysis.scheduler.synthesis-boost-ms}")
+    private long synthesisBoostMs;
+
+    /** Head start granted to a topic at 100% progress; scaled linearly below that. */
+    @Value("${analysis.scheduler.progress-boost-ms}")
+    private long progressBoostMs;
+
+    /** Delay added per call the same topic already has queued or running. */
+    @Value("${analysis.scheduler.fair-share-penalty-ms}")
+    private long fairSharePenaltyMs;
+
+    /** Upper bound of the fair-share delay. */
+    @Value("${analysis.scheduler.max-fair-share-delay-ms}")
+    private long maxFairShareDelayMs;
+
+    /** Comma-separated tenant weights, e.g. "premium:2.0,free:0.5". Unlisted tenants weigh 1.0. */
+    @Value("${analysis.scheduler.tenant-weights:}")
+    private String tenantWeightsSpec;
+
+    private final Map<String, Double> tenantWeights = new HashMap<>();
+    private final Map<UUID, AtomicInteger> outstandingByTopic = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private static final ContextSnapshotFactory CONTEXT_SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        for (String entry : tenantWeightsSpec.split(",")) {
+            String[] parts = entry.split(":");
+            if (parts.length == 2) {
+                tenantWeights.put(parts[0].trim(), Double.parseDouble(parts[1].trim()));
+            }
+        }
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        // PriorityBlockingQueue + execute() (not submit()) keeps our Comparable tasks unwrapped
+        executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "llm-scheduler-" + threadIndex.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+
+        Gauge.builder("analysis.llm.scheduler.queued", this, LlmScheduler::getQueueDepth)
+                .description("LLM calls waiting for a slot")
+                .register(meterRegistry);
+        Gauge.builder("analysis.llm.scheduler.in-flight", this, LlmScheduler::getInFlight)
+                .description("LLM calls currently running")
+                .register(meterRegistry);
+
+        log.info("LLM scheduler started: maxConcurrency={}, tenantWeights={}", maxConcurrency, tenantWeights);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public <T> T execute(LlmCallContext context, Supplier<T> call) {
+        UUID topicId = context.getTopicId();
+        int alreadyOutstanding = topicId == null ? 0
+                : outstandingByTopic.computeIfAbsent(topicId, k -> new AtomicInteger()).getAndIncrement();
+
+        ScheduledCall<T> task = new ScheduledCall<>(context, call,
+                virtualDeadline(context, alreadyOutstanding), sequence.incrementAndGet());
+        executor.execute(task);
+
+        try {
+            return task.result.get();
+        } catch (InterruptedException e) {
+            task.result.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for an LLM slot", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Computes the call's position in virtual time (nanoTime scale); smaller runs first.
+     */
+    private long virtualDeadline(LlmCallContext context, int alreadyOutstanding) {
+        double weight = tenantWeights.getOrDefault(context.getTenantId(), 1.0);
+
+        long boostMs = (long) (weight * ((context.getKind() == LlmCallContext.CallKind.SYNTHESIS ? synthesisBoostMs : 0)
+                + context.progress() * progressBoostMs));
+        long penaltyMs = Math.min(maxFairShareDelayMs, (long) (alreadyOutstanding * fairSharePenaltyMs / weight));
+
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(penaltyMs - boostMs);
+    }
+
+    private void release(UUID topicId) {
+        if (topicId == null) return;
+        outstandingByTopic.computeIfPresent(topicId, (k, count) -> count.decrementAndGet() <= 0 ? null : count);
+    }
+
+    /**
+     * A queued LLM call, ordered by virtual deadline and then by arrival.
+     * It runs in the caller's trace context, so its spans stay under the caller's.
+     */
+    private final class ScheduledCall<T> implements Runnable, Comparable<ScheduledCall<?>> {
+
+        private final LlmCallContext context;
+        private final Supplier<T> call;
+        private final long virtualDeadline;
+        private final long sequenceNumber;
+        private final ContextSnapshot callerContext = CONTEXT_SNAPSHOTS.captureAll();
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private ScheduledCall(LlmCallContext context, Supplier<T> call, long virtualDeadline, long sequenceNumber) {
+            this.context = context;
+            this.call = call;
+            this.virtualDeadline = virtualDeadline;
+            this.sequenceNumber = sequenceNumber;
+        }
+
+        @Override
+        public void run() {
+            try {
+                // The caller gave up while we were queued
+                if (result.isDone()) return;
+
+                inFlight.incrementAndGet();
+                try (ContextSnapshot.Scope ignored = callerContext.setThreadLocals()) {
+                    result.complete(call.get());
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            } finally {
+                release(context.getTopicId());
+            }
+        }
+
+        @Override
+        public int compareTo(ScheduledCall<?> other) {
+            int byDeadline = Long.compare(virtualDeadline, other.virtualDeadline);
+            return byDeadline != 0 ? byDeadline : Long.compare(sequenceNumber, other.sequenceNumber);
+        }
+    }
+}
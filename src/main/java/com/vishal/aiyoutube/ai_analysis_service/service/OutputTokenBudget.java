@@ -0,0 +1,55 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+/**
+ * OutputTokenBudget estimates how many tokens a complete answer of each schema needs.
+ * Generation time grows with every output token, so max_tokens is set just above these
+ * estimates: a rambling answer is cut off instead of holding a scheduler slot.
+ * Sizes assume about 4 characters per token for English text.
+ */
+final class OutputTokenBudget {
+
+    /** Braces, keys and the number fields of one InternalAnalysisDTO. */
+    private static final int ENVELOPE_TOKENS = 40;
+    /** Summary of a single video (a paragraph). */
+    private static final int VIDEO_SUMMARY_TOKENS = 200;
+    /** Executive summary of a whole topic (several paragraphs). */
+    private static final int EXECUTIVE_SUMMARY_TOKENS = 700;
+    private static final int EXPECTED_CLAIMS = 8;
+    private static final int CLAIM_TOKENS = 40;
+    /** videoId, explanation and shortSummary of one highlight, including JSON punctuation. */
+    private static final int HIGHLIGHT_TOKENS = 110;
+    /** The videoId key around each entry of a packed answer. */
+    private static final int PACKED_KEY_TOKENS = 15;
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private OutputTokenBudget() {
+    }
+
+    /**
+     * One Stage 1 analysis: summary, claims and the requested highlights.
+     */
+    static int analysis(int highlights) {
+        return ENVELOPE_TOKENS + VIDEO_SUMMARY_TOKENS + EXPECTED_CLAIMS * CLAIM_TOKENS + highlights * HIGHLIGHT_TOKENS;
+    }
+
+    /**
+     * A packed answer holding one analysis per document.
+     */
+    static int packed(int documents, int highlights) {
+        return documents * (PACKED_KEY_TOKENS + analysis(highlights));
+    }
+
+    /**
+     * Stage 2 synthesis: the executive summary and sentiment; claims and highlights stay empty.
+     */
+    static int synthesis() {
+        return ENVELOPE_TOKENS + EXECUTIVE_SUMMARY_TOKENS;
+    }
+
+    /**
+     * A repair returns the broken JSON corrected, so it needs at least the broken JSON's length.
+     */
+    static int repair(int brokenJsonChars, int schemaTokens) {
+        return Math.max(schemaTokens, brokenJsonChars / CHARS_PER_TOKEN + ENVELOPE_TOKENS);
+    }
+}
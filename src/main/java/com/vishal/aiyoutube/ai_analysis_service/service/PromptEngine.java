@@ -1,40 +1,141 @@
 package com.vishal.aiyoutube.ai_analysis_service.service;
 
+import com.vishal.aiyoutube.ai_analysis_service.config.GrokRequestEncoder;
+import com.vishal.aiyoutube.ai_analysis_service.dto.VideoDataProcessedEvent;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * The PromptEngine handles the instructional design for the AI Agents.
- * Updated with strict formatting rules to prevent "AI Drift" where
- * dates were being returned instead of video offsets.
+ * Video offsets are no longer requested from the model (it never sees segment start
+ * times); the TimestampResolver locates each highlight in the transcript instead.
  */
 @Service
 public class PromptEngine implements IPromptEngine {
 
     /**
      * Stage 1: Granular Video Analysis Prompt.
-     * Instructs the AI to extract specific insights and precise video offsets.
+     * Split around the transcript so the static parts can be pre-encoded once
+     * and the transcript streamed in between them.
      */
-    @Override
-    public String buildAnalysisPrompt(String context) {
-        return """
+    private static final String ANALYSIS_PROMPT_HEAD = """
             SYSTEM INSTRUCTIONS:
-            You are a Video Content Analyst. Your task is to extract the top 2 key insights from the provided transcript.
+            You are a Video Content Analyst. Your task is to extract the top %d key insights from the provided transcript.
             
             STRICT RULES FOR DATA EXTRACTION:
-            1. TIMESTAMP: This MUST be the time offset in the video (e.g., '02:15'). 
-            2. NO DATES: Never use calendar dates (like '2022-06-20') in the timestamp field.
-            3. FORMAT: If you cannot find a specific second, default to '00:00'.
-            4. JSON ONLY: Return a raw JSON object matching the internal schema.
+            1. SHORT SUMMARY: Paraphrase closely what is said at that point, reusing the speaker's key words.
+            2. JSON ONLY: Return a raw JSON object matching the internal schema.
 
             TRANSCRIPT TO ANALYZE:
-            %s
-            """.formatted(context);
+            """.formatted(HIGHLIGHTS_PER_VIDEO);
+    private static final String ANALYSIS_PROMPT_TAIL = "\n";
+
+    /**
+     * Stage 1 (packed): several short videos analyzed in a single request.
+     * The answer is keyed by videoId so it can be split back into per-video results.
+     */
+    private static final String PACKED_ANALYSIS_PROMPT_HEAD = """
+            SYSTEM INSTRUCTIONS:
+            You are a Video Content Analyst. Each transcript below belongs to a DIFFERENT video.
+            For EACH video, extract the top %d key insights from that video's transcript only.
+            
+            STRICT RULES FOR DATA EXTRACTION:
+            1. SHORT SUMMARY: Paraphrase closely what is said at that point, reusing the speaker's key words.
+            2. JSON ONLY: Return one raw JSON object whose keys are the videoIds below,
+               each mapping to an object that matches the internal schema.
+
+            TRANSCRIPTS TO ANALYZE:
+            """.formatted(HIGHLIGHTS_PER_VIDEO);
+
+    private static final byte[] ENCODED_ANALYSIS_HEAD = GrokRequestEncoder.preEncode(ANALYSIS_PROMPT_HEAD);
+    private static final byte[] ENCODED_PACKED_ANALYSIS_HEAD = GrokRequestEncoder.preEncode(PACKED_ANALYSIS_PROMPT_HEAD);
+    private static final byte[] ENCODED_VIDEO_MARKER_OPEN = GrokRequestEncoder.preEncode("\n=== VIDEO ");
+    private static final byte[] ENCODED_VIDEO_MARKER_CLOSE = GrokRequestEncoder.preEncode(" ===\n");
+    private static final byte[] ENCODED_ANALYSIS_TAIL = GrokRequestEncoder.preEncode(ANALYSIS_PROMPT_TAIL);
+    private static final byte[] ENCODED_SEGMENT_SEPARATOR = GrokRequestEncoder.preEncode(" ");
+    private static final byte[] ENCODED_TRUNCATION_MARKER = GrokRequestEncoder.preEncode("...");
+
+    /**
+     * Stage 1: Granular Video Analysis Prompt.
+     * Instructs the AI to extract specific insights, summarized in the speaker's own words so the
+     * TimestampResolver can locate them in the transcript (the model produces no offsets).
+     */
+    @Override
+    public String buildAnalysisPrompt(String context) {
+        return ANALYSIS_PROMPT_HEAD + context + ANALYSIS_PROMPT_TAIL;
+    }
+
+    /**
+     * Streaming form of {@link #buildAnalysisPrompt(String)}.
+     * Writes the pre-encoded template and JSON-escapes the segment texts straight into the
+     * request body, joined by single spaces and cut off at {@code maxTranscriptChars}.
+     */
+    @Override
+    public void writeAnalysisPrompt(List<VideoDataProcessedEvent.TranscriptSegmentDTO> segments,
+                                    int maxTranscriptChars,
+                                    GrokRequestEncoder.ContentWriter out) {
+        out.writeRaw(ENCODED_ANALYSIS_HEAD);
+        writeTranscript(segments, maxTranscriptChars, out);
+        out.writeRaw(ENCODED_ANALYSIS_TAIL);
+    }
+
+    /**
+     * Packed form of {@link #writeAnalysisPrompt}: one shared instruction block,
+     * then each video's transcript behind a "=== VIDEO {videoId} ===" marker.
+     */
+    @Override
+    public void writePackedAnalysisPrompt(List<VideoDataProcessedEvent.VideoTranscriptData> videos,
+                                          int maxTranscriptCharsPerVideo,
+                                          GrokRequestEncoder.ContentWriter out) {
+        out.writeRaw(ENCODED_PACKED_ANALYSIS_HEAD);
+        for (VideoDataProcessedEvent.VideoTranscriptData video : videos) {
+            out.writeRaw(ENCODED_VIDEO_MARKER_OPEN);
+            out.writeEscaped(video.getVideoId());
+            out.writeRaw(ENCODED_VIDEO_MARKER_CLOSE);
+            writeTranscript(video.getSegments(), maxTranscriptCharsPerVideo, out);
+        }
+        out.writeRaw(ENCODED_ANALYSIS_TAIL);
+    }
+
+    /**
+     * Escapes segment texts into the body, joined by single spaces; appends "..." when cut off.
+     */
+    private void writeTranscript(List<VideoDataProcessedEvent.TranscriptSegmentDTO> segments,
+                                 int maxTranscriptChars,
+                                 GrokRequestEncoder.ContentWriter out) {
+        int budget = maxTranscriptChars;
+        boolean first = true;
+        boolean truncated = false;
+        for (VideoDataProcessedEvent.TranscriptSegmentDTO segment : segments) {
+            String text = segment.getText();
+            if (text == null) continue;
+
+            if (!first) {
+                if (budget == 0) {
+                    truncated = true;
+                    break;
+                }
+                out.writeRaw(ENCODED_SEGMENT_SEPARATOR);
+                budget--;
+            }
+            first = false;
+
+            int written = out.writeEscaped(text, budget);
+            budget -= written;
+            if (written < text.length()) {
+                truncated = true;
+                break;
+            }
+        }
+
+        if (truncated) out.writeRaw(ENCODED_TRUNCATION_MARKER);
     }
 
     /**
      * Stage 2: Multi-Source Global Synthesis Prompt.
-     * Instructs the AI to compare findings from 3 independent sources
-     * to calculate a consensus score and final intelligence report.
+     * Claims arrive already clustered (with support counts) and consensus is computed
+     * locally, so the AI only has to write the summary and judge the overall sentiment.
      */
     @Override
     public String buildGlobalSynthesisPrompt(String partialSummaries) {
@@ -44,14 +145,14 @@ public class PromptEngine implements IPromptEngine {
          */
         return """
             SYSTEM INSTRUCTIONS:
-            You are a Lead Intelligence Editor. You have been provided with summaries from 3 independent video sources.
+            You are a Lead Intelligence Editor. You have been provided with summaries from independent video sources,
+            followed by their claims, already deduplicated into clusters. Each cluster shows how many sources made it.
             
             YOUR TASK:
-            1. Analyze the points of agreement and contradiction across all 3 sources.
+            1. Analyze the points of agreement and contradiction, giving more weight to claims backed by more sources.
             2. Write a professional Executive Summary of the findings.
-            3. CONSENSUS SCORE: Provide a percentage (0-100) representing how much the sources agree with each other.
-            4. SENTIMENT: Provide a score (0.0 to 1.0) where 1.0 is extremely positive.
-            5. COMMON CLAIMS: List the factual statements that appeared in multiple sources.
+            3. SENTIMENT: Provide a score (0.0 to 1.0) where 1.0 is extremely positive.
+            4. Consensus and common claims are computed separately: leave "consensus" at 0 and "claims" empty.
 
             INPUT SUMMARIES:
             %s
@@ -60,10 +161,30 @@ public class PromptEngine implements IPromptEngine {
             {
               "summary": "The executive summary of all research findings...",
               "sentiment": 0.5,
-              "consensus": 85.0,
-              "claims": ["Fact A found in sources", "Fact B confirmed by multiple agents"],
+              "consensus": 0,
+              "claims": [],
               "highlights": []
             }
             """.formatted(partialSummaries);
     }
-}
\ No newline at end of file
+
+    /**
+     * Repair Prompt.
+     * Sent when the output parsed but broke the schema; costs a fraction of re-analyzing the transcript.
+     */
+    @Override
+    public String buildRepairPrompt(String brokenJson, List<String> errors) {
+        StringBuilder prompt = new StringBuilder(brokenJson.length() + 256);
+        prompt.append("The JSON below violates the required schema.\n\nERRORS:\n");
+        errors.forEach(error -> prompt.append("- ").append(error).append('\n'));
+        prompt.append("""
+
+                Fix ONLY these errors and keep every other value unchanged.
+                Return the corrected JSON object and nothing else.
+
+                JSON TO FIX:
+                """);
+        prompt.append(brokenJson);
+        return prompt.toString();
+    }
+}
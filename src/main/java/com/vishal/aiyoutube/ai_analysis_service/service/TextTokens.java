@@ -0,0 +1,58 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Shared word normalization for the local text matchers (claim clustering, timestamp resolution).
+ */
+final class TextTokens {
+
+    static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "the", "and", "or", "but", "of", "to", "in", "on", "at", "for", "by", "with",
+            "from", "as", "is", "are", "was", "were", "be", "been", "being", "it", "its", "this",
+            "that", "these", "those", "will", "would", "can", "could", "should", "has", "have",
+            "had", "do", "does", "did", "than", "then", "there", "their", "they", "which", "who",
+            "very", "also", "more", "most", "such", "into", "about", "over", "said", "says");
+
+    private TextTokens() {
+    }
+
+    /**
+     * Lower-cased words of the text, split on anything that is not a letter or digit.
+     */
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null || text.isBlank()) return words;
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+            if (!word.isEmpty()) words.add(word);
+        }
+        return words;
+    }
+
+    /**
+     * Stemmed content words in their original order (stop words and single letters removed).
+     */
+    static List<String> contentTokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String word : words(text)) {
+            if (isContentWord(word)) tokens.add(stem(word));
+        }
+        return tokens;
+    }
+
+    static boolean isContentWord(String word) {
+        return word.length() > 1 && !STOP_WORDS.contains(word);
+    }
+
+    /**
+     * Very light suffix stripping; enough to align plurals and third-person verbs.
+     */
+    static String stem(String word) {
+        if (word.length() > 4 && word.endsWith("ies")) return word.substring(0, word.length() - 3) + "y";
+        if (word.length() > 3 && word.endsWith("s") && !word.endsWith("ss")) return word.substring(0, word.length() - 1);
+        return word;
+    }
+}
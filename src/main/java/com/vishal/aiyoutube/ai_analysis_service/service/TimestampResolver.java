@@ -0,0 +1,114 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.InternalAnalysisDTO;
+import com.vishal.aiyoutube.ai_analysis_service.dto.VideoDataProcessedEvent;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * TimestampResolver maps highlights back to the transcript to get exact video offsets.
+ * * KEY ARCHITECTURAL FEATURES:
+ * 1. N-gram Index: Each segment's stemmed content words and word bigrams are put into an
+ * inverted index built once per video, so matching costs a few map lookups per highlight.
+ * 2. IDF Scoring: Rare words and phrases count more than words that appear everywhere
+ * in the video; a shared bigram counts double, since paraphrases rarely keep word order.
+ * 3. Neighbour Smoothing: Segments are short, so half of each neighbour's score is added
+ * before picking the best segment (ties go to the earliest one).
+ * 4. Real Offsets: The winning segment's start time is used, so deep links are exact and
+ * the LLM no longer spends output tokens (or mistakes) on timestamps.
+ */
+@Service
+public class TimestampResolver implements ITimestampResolver {
+
+    private static final String UNKNOWN_OFFSET = "00:00";
+    private static final double BIGRAM_WEIGHT = 2.0;
+    private static final double NEIGHBOUR_WEIGHT = 0.5;
+
+    @Override
+    public List<String> resolve(List<VideoDataProcessedEvent.TranscriptSegmentDTO> segments,
+                                List<InternalAnalysisDTO.Highlight> highlights) {
+        if (highlights == null || highlights.isEmpty()) return List.of();
+
+        TranscriptIndex index = new TranscriptIndex(segments != null ? segments : List.of());
+        List<String> offsets = new ArrayList<>(highlights.size());
+        for (InternalAnalysisDTO.Highlight highlight : highlights) {
+            String query = highlight == null ? "" : highlight.getShortSummary() + " " + highlight.getExplanation();
+            Double start = index.bestStart(query);
+            offsets.add(start != null ? formatOffset(start) : UNKNOWN_OFFSET);
+        }
+        return offsets;
+    }
+
+    static String formatOffset(double seconds) {
+        long total = Math.max(0, (long) seconds);
+        long hours = total / 3600;
+        long minutes = (total % 3600) / 60;
+        long secs = total % 60;
+        return hours > 0
+                ? String.format("%d:%02d:%02d", hours, minutes, secs)
+                : String.format("%02d:%02d", minutes, secs);
+    }
+
+    /**
+     * Inverted index from unigrams and bigrams to the segments containing them.
+     */
+    private static final class TranscriptIndex {
+
+        private final List<VideoDataProcessedEvent.TranscriptSegmentDTO> segments;
+        private final Map<String, List<Integer>> postings = new HashMap<>();
+
+        private TranscriptIndex(List<VideoDataProcessedEvent.TranscriptSegmentDTO> segments) {
+            this.segments = segments;
+            for (int i = 0; i < segments.size(); i++) {
+                for (String gram : grams(TextTokens.contentTokens(segments.get(i).getText()))) {
+                    List<Integer> list = postings.computeIfAbsent(gram, k -> new ArrayList<>());
+                    // Grams of one segment are distinct, but keep the list free of duplicates anyway
+                    if (list.isEmpty() || list.get(list.size() - 1) != i) list.add(i);
+                }
+            }
+        }
+
+        /**
+         * Start offset (seconds) of the segment matching the text best, or null if nothing matches.
+         */
+        private Double bestStart(String text) {
+            double[] scores = new double[segments.size()];
+            boolean matched = false;
+
+            for (String gram : grams(TextTokens.contentTokens(text))) {
+                List<Integer> hits = postings.get(gram);
+                if (hits == null) continue;
+
+                double idf = Math.log(1.0 + (double) segments.size() / hits.size());
+                double weight = gram.indexOf(' ') >= 0 ? BIGRAM_WEIGHT * idf : idf;
+                for (int segment : hits) scores[segment] += weight;
+                matched = true;
+            }
+            if (!matched) return null;
+
+            int best = -1;
+            double bestScore = 0;
+            for (int i = 0; i < scores.length; i++) {
+                double smoothed = scores[i]
+                        + NEIGHBOUR_WEIGHT * ((i > 0 ? scores[i - 1] : 0) + (i + 1 < scores.length ? scores[i + 1] : 0));
+                if (scores[i] > 0 && smoothed > bestScore) {
+                    best = i;
+                    bestScore = smoothed;
+                }
+            }
+            return best >= 0 ? segments.get(best).getStart() : null;
+        }
+
+        /**
+         * Distinct unigrams and adjacent-word bigrams of a token sequence.
+         */
+        private static Set<String> grams(List<String> tokens) {
+            Set<String> grams = new LinkedHashSet<>(tokens);
+            for (int i = 0; i + 1 < tokens.size(); i++) {
+                grams.add(tokens.get(i) + " " + tokens.get(i + 1));
+            }
+            return grams;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.ModelTokenUsageDTO;
+import com.vishal.aiyoutube.ai_analysis_service.dto.TokenBudgetMode;
+import com.vishal.aiyoutube.ai_analysis_service.dto.TopicTokenUsageDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TokenUsageLedger keeps the token bill of every LLM call.
+ * * KEY ARCHITECTURAL FEATURES:
+ * 1. Accounting: Prompt and completion tokens from each Groq response are added per topic
+ * and per model (also exported as the 'analysis.tokens' counter, tagged by model and type).
+ * 2. Budgets: With analysis.tokens.topic-budget set, a topic's spent share picks its mode:
+ * shorter transcript windows, then the small model, then a local synthesis without an LLM call.
+ * The thresholds are analysis.tokens.short-transcript-at, small-model-at and local-synthesis-at.
+ * 3. Soft Limits: Modes only make the next calls cheaper; calls already running are never
+ * cut off, so a topic can end slightly above its budget but cannot run away with the quota.
+ * 4. Bounded Memory: Topics without new usage for analysis.tokens.retention-seconds are forgotten.
+ * 5. Shared Calls: A packed request serves several topics at once; its usage is split across
+ * them by transcript characters, so packing does not let a topic bypass its budget.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenUsageLedger implements ITokenUsageLedger {
+
+    private final MeterRegistry meterRegistry;
+
+    /** Total tokens a topic may spend; 0 disables budgets. */
+    @Value("${analysis.tokens.topic-budget}")
+    private long topicBudget;
+
+    @Value("${analysis.tokens.short-transcript-at}")
+    private double shortTranscriptAt;
+
+    @Value("${analysis.tokens.small-model-at}")
+    private double smallModelAt;
+
+    @Value("${analysis.tokens.local-synthesis-at}")
+    private double localSynthesisAt;
+
+    @Value("${analysis.tokens.short-transcript-chars}")
+    private int shortTranscriptChars;
+
+    @Value("${analysis.tokens.small-model}")
+    private String smallModel;
+
+    @Value("${analysis.tokens.retention-seconds}")
+    private long retentionSeconds;
+
+    private final Map<UUID, Usage> byTopic = new ConcurrentHashMap<>();
+    private final Map<String, Usage> byModel = new ConcurrentHashMap<>();
+
+    @Override
+    public void record(UUID topicId, String model, int promptTokens, int completionTokens) {
+        recordModel(model, promptTokens, completionTokens);
+        if (topicId != null) recordTopic(topicId, promptTokens, completionTokens);
+    }
+
+    @Override
+    public void recordShared(Map<UUID, Integer> weights, String model, int promptTokens, int completionTokens) {
+        recordModel(model, promptTokens, completionTokens);
+
+        long weightLeft = weights.values().stream().mapToLong(Integer::longValue).sum();
+        int promptLeft = promptTokens;
+        int completionLeft = completionTokens;
+        for (Map.Entry<UUID, Integer> share : weights.entrySet()) {
+            if (weightLeft <= 0) break;
+            // Each topic takes its share of what is left, so the last one absorbs the rounding
+            int prompt = (int) (promptLeft * (long) share.getValue() / weightLeft);
+            int completion = (int) (completionLeft * (long) share.getValue() / weightLeft);
+            promptLeft -= prompt;
+            completionLeft -= completion;
+            weightLeft -= share.getValue();
+            recordTopic(share.getKey(), prompt, completion);
+        }
+    }
+
+    private void recordModel(String model, int promptTokens, int completionTokens) {
+        byModel.computeIfAbsent(model, m -> new Usage()).add(promptTokens, completionTokens);
+        Counter.builder("analysis.tokens").tag("model", model).tag("type", "prompt")
+                .register(meterRegistry).increment(promptTokens);
+        Counter.builder("analysis.tokens").tag("model", model).tag("type", "completion")
+                .register(meterRegistry).increment(completionTokens);
+    }
+
+    private void recordTopic(UUID topicId, int promptTokens, int completionTokens) {
+        Usage usage = byTopic.computeIfAbsent(topicId, id -> new Usage());
+        TokenBudgetMode before = modeOf(usage);
+        usage.add(promptTokens, completionTokens);
+        TokenBudgetMode after = modeOf(usage);
+        if (after != before) {
+            log.warn("Topic {} used {} of {} budgeted tokens; switching to {}",
+                    topicId, usage.total(), topicBudget, after);
+        }
+    }
+
+    @Override
+    public TokenBudgetMode modeFor(UUID topicId) {
+        Usage usage = topicId != null ? byTopic.get(topicId) : null;
+        return usage != null ? modeOf(usage) : TokenBudgetMode.FULL;
+    }
+
+    @Override
+    public int transcriptChars(TokenBudgetMode mode, int defaultChars) {
+        return mode.compareTo(TokenBudgetMode.SHORT_TRANSCRIPT) >= 0
+                ? Math.min(defaultChars, shortTranscriptChars)
+                : defaultChars;
+    }
+
+    @Override
+    public String modelFor(TokenBudgetMode mode) {
+        return mode.compareTo(TokenBudgetMode.SMALL_MODEL) >= 0 ? smallModel : null;
+    }
+
+    @Override
+    public TopicTokenUsageDTO topicUsage(UUID topicId) {
+        Usage usage = byTopic.get(topicId);
+        return usage != null ? toDto(topicId, usage) : null;
+    }
+
+    @Override
+    public List<TopicTokenUsageDTO> topTopics(int limit) {
+        return byTopic.entrySet().stream()
+                .map(e -> toDto(e.getKey(), e.getValue()))
+                .sorted(Comparator.comparingLong(TopicTokenUsageDTO::getTotalTokens).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public List<ModelTokenUsageDTO> modelUsage() {
+        return byModel.entrySet().stream()
+                .map(e -> ModelTokenUsageDTO.builder()
+                        .model(e.getKey())
+                        .promptTokens(e.getValue().prompt.sum())
+                        .completionTokens(e.getValue().completion.sum())
+                        .totalTokens(e.getValue().total())
+                        .calls(e.getValue().calls.sum())
+                        .build())
+                .sorted(Comparator.comparingLong(ModelTokenUsageDTO::getTotalTokens).reversed())
+                .toList();
+    }
+
+    /**
+     * Forgets topics that stopped spending; their reports are long published by then.
+     */
+    @Scheduled(fixedDelayString = "${analysis.tokens.sweep-interval-ms}")
+    public void forgetIdleTopics() {
+        long forgetBefore = System.currentTimeMillis() - retentionSeconds * 1000;
+        byTopic.values().removeIf(usage -> usage.lastUpdatedMs < forgetBefore);
+    }
+
+    private TokenBudgetMode modeOf(Usage usage) {
+        if (topicBudget <= 0) return TokenBudgetMode.FULL;
+
+        double used = (double) usage.total() / topicBudget;
+        if (used >= localSynthesisAt) return TokenBudgetMode.LOCAL_SYNTHESIS;
+        if (used >= smallModelAt) return TokenBudgetMode.SMALL_MODEL;
+        if (used >= shortTranscriptAt) return TokenBudgetMode.SHORT_TRANSCRIPT;
+        return TokenBudgetMode.FULL;
+    }
+
+    private TopicTokenUsageDTO toDto(UUID topicId, Usage usage) {
+        return TopicTokenUsageDTO.builder()
+                .topicId(topicId)
+                .promptTokens(usage.prompt.sum())
+                .completionTokens(usage.completion.sum())
+                .totalTokens(usage.total())
+                .calls(usage.calls.sum())
+                .budget(Math.max(0, topicBudget))
+                .budgetUsed(topicBudget > 0 ? (double) usage.total() / topicBudget : 0.0)
+                .mode(modeOf(usage))
+                .build();
+    }
+
+    private static final class Usage {
+        private final LongAdder prompt = new LongAdder();
+        private final LongAdder completion = new LongAdder();
+        private final LongAdder calls = new LongAdder();
+        private volatile long lastUpdatedMs = System.currentTimeMillis();
+
+        private void add(int promptTokens, int completionTokens) {
+            prompt.add(promptTokens);
+            completion.add(completionTokens);
+            calls.increment();
+            lastUpdatedMs = System.currentTimeMillis();
+        }
+
+        private long total() {
+            return prompt.sum() + completion.sum();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import io.micrometer.context.ContextSnapshotFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A research topic's aggregation state plus the mailbox that serializes every change to it.
+ * Messages are queued lock-free and run one at a time on the shared pool of the
+ * TopicActorRuntime, so TopicState needs no locks: only the running message touches it.
+ * Messages must be short (no LLM calls, no waiting on other actors); slow work runs outside
+ * and reports back with another message. Each message runs in its sender's trace context.
+ */
+@Slf4j
+final class TopicActor {
+
+    private static final ContextSnapshotFactory CONTEXT_SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+    private final TopicState state;
+    private final Executor pool;
+    private final int throughput;
+
+    private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    TopicActor(UUID topicId, Executor pool, int throughput) {
+        this.state = new TopicState(topicId);
+        this.pool = pool;
+        this.throughput = throughput;
+    }
+
+    UUID topicId() {
+        return state.topicId;
+    }
+
+    /**
+     * Queues a state transition without waiting for it.
+     */
+    void tell(Consumer<TopicState> message) {
+        enqueue(() -> message.accept(state));
+    }
+
+    /**
+     * Queues a state transition and returns its result once it has run.
+     * Never join the reply from inside another message: that would block a pool thread.
+     */
+    <T> CompletableFuture<T> ask(Function<TopicState, T> message) {
+        CompletableFuture<T> reply = new CompletableFuture<>();
+        enqueue(() -> {
+            try {
+                reply.complete(message.apply(state));
+            } catch (Throwable t) {
+                reply.completeExceptionally(t);
+            }
+        });
+        return reply;
+    }
+
+    int pendingMessages() {
+        return mailbox.size();
+    }
+
+    private void enqueue(Runnable message) {
+        mailbox.offer(CONTEXT_SNAPSHOTS.captureAll().wrap(message));
+        trySchedule();
+    }
+
+    private void trySchedule() {
+        // At most one drain per actor is scheduled or running at any time
+        if (!mailbox.isEmpty() && scheduled.compareAndSet(false, true)) {
+            pool.execute(this::drain);
+        }
+    }
+
+    /**
+     * Runs up to 'throughput' messages, then yields the pool thread so busy topics cannot
+     * starve quiet ones. The scheduled flag also publishes the state to the next drain's thread.
+     */
+    private void drain() {
+        try {
+            for (int i = 0; i < throughput; i++) {
+                Runnable message = mailbox.poll();
+                if (message == null) break;
+                try {
+                    message.run();
+                } catch (Throwable t) {
+                    log.error("Message for Topic {} failed: {}", state.topicId, t.getMessage(), t);
+                }
+            }
+        } finally {
+            scheduled.set(false);
+            trySchedule();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TopicActorRuntime hosts one TopicActor per open research topic.
+ * * KEY ARCHITECTURAL FEATURES:
+ * 1. Single Writer: Every state transition of a topic runs as a message on that topic's
+ * actor, one at a time, so finalization, late videos and sweeps can no longer interleave.
+ * 2. Shared Pool: Actors own no threads. Their mailboxes drain on one work-stealing pool
+ * sized to the cores (analysis.actors.parallelism, 0 = available processors), so topics
+ * scale with cores instead of contending on locks.
+ * 3. Lock-Free Mailboxes: Messages are queued on a ConcurrentLinkedQueue and an atomic flag
+ * schedules the drain; there is no global lock anywhere on the path.
+ * 4. Fairness: A drain runs at most analysis.actors.throughput messages before yielding.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+class TopicActorRuntime {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${analysis.actors.parallelism}")
+    private int parallelism;
+
+    @Value("${analysis.actors.throughput}")
+    private int throughput;
+
+    private final Map<UUID, TopicActor> actors = new ConcurrentHashMap<>();
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void start() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        // asyncMode: FIFO scheduling suits event-style tasks that are never joined
+        pool = new ForkJoinPool(threads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+
+        Gauge.builder("analysis.actors.active", actors, Map::size)
+                .description("Topics with a live actor")
+                .register(meterRegistry);
+        Gauge.builder("analysis.actors.pending-messages", this, TopicActorRuntime::getPendingMessages)
+                .description("Messages waiting in topic mailboxes")
+                .register(meterRegistry);
+
+        log.info("Topic actor runtime started: parallelism={}, throughput={}", threads, throughput);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * The topic's actor, created on first use.
+     */
+    TopicActor actorOf(UUID topicId) {
+        return actors.computeIfAbsent(topicId, id -> new TopicActor(id, pool, throughput));
+    }
+
+    /**
+     * The topic's actor, or null when the topic is not open here.
+     */
+    TopicActor get(UUID topicId) {
+        return actors.get(topicId);
+    }
+
+    /**
+     * True while the given actor is still the topic's live actor (not finalized or handed off).
+     */
+    boolean isCurrent(TopicActor actor) {
+        return actors.get(actor.topicId()) == actor;
+    }
+
+    TopicActor remove(UUID topicId) {
+        return actors.remove(topicId);
+    }
+
+    boolean remove(TopicActor actor) {
+        return actors.remove(actor.topicId(), actor);
+    }
+
+    Collection<TopicActor> all() {
+        return actors.values();
+    }
+
+    private int getPendingMessages() {
+        return actors.values().stream().mapToInt(TopicActor::pendingMessages).sum();
+    }
+}
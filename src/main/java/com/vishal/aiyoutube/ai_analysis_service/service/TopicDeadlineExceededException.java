@@ -0,0 +1,21 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import java.util.UUID;
+
+/**
+ * Thrown when work for a topic is attempted after its deadline passed or after the topic
+ * was already failed or finalized. Never retried.
+ */
+public class TopicDeadlineExceededException extends RuntimeException {
+
+    private final UUID topicId;
+
+    public TopicDeadlineExceededException(UUID topicId, String message) {
+        super(message);
+        this.topicId = topicId;
+    }
+
+    public UUID getTopicId() {
+        return topicId;
+    }
+}
@@ -0,0 +1,151 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+/**
+ * TopicDeadlineRegistry gives every topic a time budget.
+ * * KEY ARCHITECTURAL FEATURES:
+ * 1. Deadlines: Taken from the 'x-topic-deadline' header when present, otherwise
+ * analysis.deadline.default-seconds after the topic's first event (0 disables the default).
+ * 2. Propagation: AIProcessorService asks for the remaining time before every Groq call
+ * and uses it as the call's timeout, so no call outlives its topic.
+ * 3. Cancellation: In-flight calls are tracked per topic and cancelled as soon as the topic
+ * is finalized, failed or expired, which releases their connections and scheduler slots.
+ * 4. Tombstones: Closed topics are remembered for analysis.deadline.closed-retention-seconds
+ * so late events of an expired topic are dropped instead of starting it again. Closures made
+ * by other instances are added through markClosed, so they survive a partition hand-off.
+ */
+@Slf4j
+@Service
+public class TopicDeadlineRegistry implements ITopicDeadlineRegistry {
+
+    @Value("${analysis.deadline.default-seconds}")
+    private long defaultSeconds;
+
+    @Value("${analysis.deadline.closed-retention-seconds}")
+    private long closedRetentionSeconds;
+
+    private final Map<UUID, TopicBudget> budgets = new ConcurrentHashMap<>();
+    private final Map<UUID, Instant> closedTopics = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean open(UUID topicId, Instant requestedDeadline) {
+        if (closedTopics.containsKey(topicId)) return false;
+
+        TopicBudget budget = budgets.computeIfAbsent(topicId, id -> new TopicBudget(
+                defaultSeconds > 0 ? Instant.now().plusSeconds(defaultSeconds) : null));
+        if (requestedDeadline != null) {
+            // The producer's deadline always wins over our default
+            budget.deadline = requestedDeadline;
+        }
+        return true;
+    }
+
+    @Override
+    public Duration remaining(UUID topicId) {
+        if (topicId == null) return null;
+        ensureOpen(topicId);
+
+        TopicBudget budget = budgets.get(topicId);
+        if (budget == null || budget.deadline == null) return null;
+
+        Duration remaining = Duration.between(Instant.now(), budget.deadline);
+        if (remaining.isNegative() || remaining.isZero()) {
+            // Passed between the check above and here
+            throw new TopicDeadlineExceededException(topicId, "Deadline of topic " + topicId + " has passed");
+        }
+        return remaining;
+    }
+
+    @Override
+    public void ensureOpen(UUID topicId) {
+        if (topicId == null) return;
+        if (closedTopics.containsKey(topicId)) {
+            throw new TopicDeadlineExceededException(topicId, "Topic " + topicId + " is already closed");
+        }
+
+        TopicBudget budget = budgets.get(topicId);
+        if (budget != null && budget.deadline != null && !Instant.now().isBefore(budget.deadline)) {
+            throw new TopicDeadlineExceededException(topicId, "Deadline of topic " + topicId + " has passed");
+        }
+    }
+
+    @Override
+    public AutoCloseable track(UUID topicId, Future<?> call) {
+        TopicBudget budget = topicId != null ? budgets.get(topicId) : null;
+        if (budget == null) return () -> { };
+
+        budget.inFlight.add(call);
+        // The topic may have closed between remaining() and here
+        if (closedTopics.containsKey(topicId)) call.cancel(true);
+        return () -> budget.inFlight.remove(call);
+    }
+
+    @Override
+    public boolean close(UUID topicId) {
+        if (closedTopics.putIfAbsent(topicId, Instant.now()) != null) return false;
+        cancelInFlight(topicId, budgets.remove(topicId), "closed");
+        return true;
+    }
+
+    @Override
+    public void markClosed(UUID topicId, Instant closedAt) {
+        if (closedTopics.putIfAbsent(topicId, closedAt) == null) {
+            cancelInFlight(topicId, budgets.remove(topicId), "remotely closed");
+        }
+    }
+
+    @Override
+    public void release(UUID topicId) {
+        cancelInFlight(topicId, budgets.remove(topicId), "released");
+    }
+
+    private void cancelInFlight(UUID topicId, TopicBudget budget, String reason) {
+        if (budget == null) return;
+
+        int cancelled = 0;
+        for (Future<?> call : budget.inFlight) {
+            if (call.cancel(true)) cancelled++;
+        }
+        if (cancelled > 0) {
+            log.info("Cancelled {} in-flight LLM calls of {} topic {}", cancelled, reason, topicId);
+        }
+    }
+
+    @Override
+    public List<UUID> expireOverdue() {
+        Instant now = Instant.now();
+        List<UUID> expired = new ArrayList<>();
+        budgets.forEach((topicId, budget) -> {
+            if (budget.deadline != null && !now.isBefore(budget.deadline)) {
+                expired.add(topicId);
+            }
+        });
+        expired.forEach(this::close);
+
+        Instant forgetBefore = now.minusSeconds(closedRetentionSeconds);
+        closedTopics.values().removeIf(closedAt -> closedAt.isBefore(forgetBefore));
+        return expired;
+    }
+
+    private static final class TopicBudget {
+        private volatile Instant deadline;
+        private final Set<Future<?>> inFlight = ConcurrentHashMap.newKeySet();
+
+        private TopicBudget(Instant deadline) {
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.AnalysisCompletedEvent;
+import com.vishal.aiyoutube.ai_analysis_service.dto.InternalAnalysisDTO;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Aggregation state of one research topic inside the AnalysisOrchestrator.
+ * Owned by the topic's TopicActor: it is only read or written by messages running on the
+ * actor's mailbox, never directly by workers or sweeps, so it carries no locks.
+ */
+class TopicState {
+
+    final UUID topicId;
+    String tenantId;
+    int totalVideos;
+
+    /** Highest currentCount seen, i.e. how many videos have arrived. */
+    int receivedVideos;
+    int failedVideos;
+
+    /** Videos already accepted; the rekey stage delivers at least once, so duplicates are dropped. */
+    final Set<String> videoIds = new HashSet<>();
+
+    final List<InternalAnalysisDTO> partials = new ArrayList<>();
+    /** Video of each entry in partials, in the same order. */
+    final List<String> analyzedVideoIds = new ArrayList<>();
+    final List<AnalysisCompletedEvent.VideoSegmentDTO> segments = new ArrayList<>();
+
+    /** When the analyzed share first reached the quorum ratio; null before that. */
+    Instant quorumReachedAt;
+
+    /** Last published report revision; 0 while nothing has been published. */
+    int publishedRevision;
+
+    boolean synthesisRunning;
+    boolean resynthesisPending;
+
+    TopicState(UUID topicId) {
+        this.topicId = topicId;
+    }
+
+    boolean allVideosIn() {
+        return totalVideos > 0 && receivedVideos >= totalVideos;
+    }
+
+    /**
+     * True once enough videos were analyzed successfully to publish a report.
+     */
+    boolean quorumMet(double ratio) {
+        return !partials.isEmpty() && partials.size() >= Math.ceil(ratio * totalVideos);
+    }
+
+    /**
+     * True when the quorum can no longer be reached because too many videos failed.
+     */
+    boolean quorumUnreachable(double ratio) {
+        return totalVideos - failedVideos < Math.ceil(ratio * totalVideos);
+    }
+}
@@ -0,0 +1,86 @@
+package com.vishal.aiyoutube.ai_analysis_service.config;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.GrokChatRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GrokClientTest {
+
+	/** Records every encoded request body so the test can check who released it. */
+	private final List<ByteBuf> encoded = new CopyOnWriteArrayList<>();
+
+	private final GrokRequestEncoder encoder = new GrokRequestEncoder(new SimpleMeterRegistry()) {
+		@Override
+		public ByteBuf encode(byte[] requestHead, PromptWriter systemPrompt, PromptWriter userPrompt,
+							  GrokChatRequest options) {
+			ByteBuf buffer = super.encode(requestHead, systemPrompt, userPrompt, options);
+			encoded.add(buffer);
+			return buffer;
+		}
+	};
+
+	private GrokClient client;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(encoder, "initialBufferBytes", 1024);
+		ReflectionTestUtils.setField(encoder, "maxRequestBytes", 65536);
+
+		GrokKeyPool keyPool = new GrokKeyPool(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(keyPool, "apiKeys", "");
+		ReflectionTestUtils.setField(keyPool, "apiKey", "test-key");
+		ReflectionTestUtils.setField(keyPool, "failureThreshold", 3);
+		keyPool.init();
+
+		// The exchange never subscribes to the request body, like a connection that is never acquired
+		WebClient webClient = WebClient.builder()
+				.baseUrl("http://localhost")
+				.exchangeFunction(request -> Mono.never())
+				.build();
+
+		client = new GrokClient(webClient, encoder, keyPool, ObservationRegistry.NOOP);
+		ReflectionTestUtils.setField(client, "model", "test-model");
+		ReflectionTestUtils.setField(client, "temperature", 0.7);
+		ReflectionTestUtils.setField(client, "jsonMode", true);
+		ReflectionTestUtils.setField(client, "seed", "");
+		ReflectionTestUtils.setField(client, "stopSequences", List.of());
+		ReflectionTestUtils.setField(client, "timeoutSeconds", 60);
+		client.initRequestHead();
+	}
+
+	@Test
+	void releasesUnsentRequestBodyWhenCancelled() {
+		CompletableFuture<String> call = client.chatAsync(
+				out -> out.writeEscaped("system"), out -> out.writeEscaped("user"), Duration.ofSeconds(30));
+
+		assertThat(encoded).hasSize(1);
+		assertThat(encoded.get(0).refCnt()).isEqualTo(1);
+
+		call.cancel(true);
+
+		assertThat(encoded.get(0).refCnt()).isZero();
+	}
+
+	@Test
+	void releasesUnsentRequestBodyOnTimeout() {
+		CompletableFuture<String> call = client.chatAsync(
+				out -> out.writeEscaped("system"), out -> out.writeEscaped("user"), Duration.ofMillis(50));
+
+		assertThatThrownBy(() -> GrokClient.await(call)).hasMessageContaining("timed out");
+		assertThat(encoded.get(0).refCnt()).isZero();
+	}
+}
@@ -0,0 +1,98 @@
+package com.vishal.aiyoutube.ai_analysis_service.consumer;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffsetTrackerTest {
+
+	private static final Predicate<Object> NOTHING_HELD = key -> false;
+
+	private final OffsetTracker tracker = new OffsetTracker(new TopicPartition("videos", 0));
+
+	/** Offsets whose acknowledgment fired, in firing order. */
+	private final List<Long> acknowledged = new CopyOnWriteArrayList<>();
+
+	private void register(long offset, Object key) {
+		tracker.register(offset, key, ackFor(offset));
+	}
+
+	private Acknowledgment ackFor(long offset) {
+		return () -> acknowledged.add(offset);
+	}
+
+	@Test
+	void waitsForGapsBeforeAcknowledging() {
+		register(0, "a");
+		register(1, "b");
+		register(2, "c");
+
+		tracker.complete(2, NOTHING_HELD);
+		assertThat(acknowledged).isEmpty();
+
+		tracker.complete(0, NOTHING_HELD);
+		assertThat(acknowledged).containsExactly(0L);
+
+		// Closing the gap releases 1 and 2 together; only the last acknowledgment is needed
+		tracker.complete(1, NOTHING_HELD);
+		assertThat(acknowledged).containsExactly(0L, 2L);
+	}
+
+	@Test
+	void holdsCompletedRecordsOfOpenTopics() {
+		Set<Object> openTopics = new HashSet<>(Set.of("open"));
+		register(0, "open");
+		register(1, "closed");
+
+		tracker.complete(0, openTopics::contains);
+		tracker.complete(1, openTopics::contains);
+		assertThat(acknowledged).isEmpty();
+
+		// Nothing advances on its own while the topic stays open
+		tracker.advance(openTopics::contains);
+		assertThat(acknowledged).isEmpty();
+
+		openTopics.remove("open");
+		tracker.advance(openTopics::contains);
+		assertThat(acknowledged).containsExactly(1L);
+	}
+
+	@Test
+	void heldRecordDoesNotBlockEarlierOffsets() {
+		register(0, "closed");
+		register(1, "open");
+		register(2, "closed");
+
+		tracker.complete(0, "open"::equals);
+		tracker.complete(1, "open"::equals);
+		tracker.complete(2, "open"::equals);
+
+		assertThat(acknowledged).containsExactly(0L);
+	}
+
+	@Test
+	void revokeReturnsUncommittedKeysAndStopsAcknowledging() {
+		register(0, "a");
+		register(1, "b");
+		register(2, "b");
+		tracker.complete(0, NOTHING_HELD);
+		tracker.complete(2, NOTHING_HELD);
+		assertThat(acknowledged).containsExactly(0L);
+
+		assertThat(tracker.revoke()).containsExactlyInAnyOrder("b");
+		assertThat(tracker.isRevoked()).isTrue();
+
+		// A late completion must not commit for a partition another instance owns now
+		tracker.complete(1, NOTHING_HELD);
+		tracker.advance(NOTHING_HELD);
+		assertThat(acknowledged).containsExactly(0L);
+	}
+}
@@ -0,0 +1,59 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.ClaimConsensusDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClaimClusteringEngineTest {
+
+	private ClaimClusteringEngine engine;
+
+	@BeforeEach
+	void setUp() {
+		engine = new ClaimClusteringEngine();
+		ReflectionTestUtils.setField(engine, "similarityThreshold", 0.5);
+	}
+
+	@Test
+	void groupsNearDuplicateClaimsAcrossSources() {
+		ClaimConsensusDTO result = engine.cluster(List.of(
+				List.of("The central bank raised interest rates by 50 basis points.", "Housing prices are falling."),
+				List.of("Central bank raises interest rates by 50 basis points", "Tech stocks rallied this week."),
+				List.of("The central bank has raised interest rates 50 basis points")));
+
+		assertThat(result.getSourceCount()).isEqualTo(3);
+		assertThat(result.getTotalClaims()).isEqualTo(5);
+		assertThat(result.getClusters()).hasSize(3);
+
+		ClaimConsensusDTO.ClaimCluster top = result.getClusters().get(0);
+		assertThat(top.getSupport()).isEqualTo(3);
+		assertThat(top.getSize()).isEqualTo(3);
+		assertThat(top.getRepresentative()).containsIgnoringCase("interest rates");
+
+		// 3 of 5 claims are corroborated by another source
+		assertThat(result.getConsensusPercentage()).isEqualTo(60.0);
+	}
+
+	@Test
+	void isDeterministic() {
+		List<List<String>> claims = List.of(
+				List.of("Inflation is rising", "Wages are stagnant"),
+				List.of("inflation rises", "Unemployment is low"));
+
+		assertThat(engine.cluster(claims)).isEqualTo(engine.cluster(claims));
+	}
+
+	@Test
+	void singleSourceIsFullyConsistent() {
+		ClaimConsensusDTO result = engine.cluster(List.of(List.of("Only one video was analyzed")));
+
+		assertThat(result.getConsensusPercentage()).isEqualTo(100.0);
+		assertThat(result.getClusters()).singleElement()
+				.extracting(ClaimConsensusDTO.ClaimCluster::getSupport).isEqualTo(1);
+	}
+}
@@ -0,0 +1,71 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vishal.aiyoutube.ai_analysis_service.dto.JsonExtractionResult;
+import com.vishal.aiyoutube.ai_analysis_service.dto.JsonExtractionResult.Repair;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonResponseExtractorTest {
+
+	private final JsonResponseExtractor extractor = new JsonResponseExtractor();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void leavesCleanJsonUntouched() {
+		JsonExtractionResult result = extractor.extract("{\"summary\":\"ok\",\"claims\":[\"a\",\"b\"]}");
+
+		assertThat(result.getJson()).isEqualTo("{\"summary\":\"ok\",\"claims\":[\"a\",\"b\"]}");
+		assertThat(result.isRepaired()).isFalse();
+	}
+
+	@Test
+	void stripsFencesAndIgnoresBracesInStrings() throws Exception {
+		JsonExtractionResult result = extractor.extract("""
+				Here is the report:
+				```json
+				{"summary": "uses {braces} and \\"quotes\\"", "sentiment": 0.4}
+				```
+				Let me know if you need more. {"not": "this"}
+				""");
+
+		JsonNode node = objectMapper.readTree(result.getJson());
+		assertThat(node.get("summary").asText()).isEqualTo("uses {braces} and \"quotes\"");
+		assertThat(result.getRepairs()).containsExactly(Repair.CODE_FENCE_STRIPPED, Repair.TRAILING_TEXT_DROPPED);
+	}
+
+	@Test
+	void removesTrailingCommasAndEscapesControlCharacters() throws Exception {
+		JsonExtractionResult result = extractor.extract("{\"claims\": [\"a\", \"b\",], \"summary\": \"line1\nline2\",}");
+
+		JsonNode node = objectMapper.readTree(result.getJson());
+		assertThat(node.get("claims")).hasSize(2);
+		assertThat(node.get("summary").asText()).isEqualTo("line1\nline2");
+		assertThat(result.getRepairs()).contains(Repair.TRAILING_COMMA_REMOVED, Repair.CONTROL_CHARACTER_ESCAPED);
+	}
+
+	@Test
+	void closesTruncatedOutput() throws Exception {
+		JsonExtractionResult result = extractor.extract(
+				"{\"summary\": \"s\", \"claims\": [\"first\", \"sec");
+
+		JsonNode node = objectMapper.readTree(result.getJson());
+		assertThat(node.get("claims").get(1).asText()).isEqualTo("sec");
+		assertThat(result.getRepairs()).containsExactly(Repair.TRUNCATED_STRING_CLOSED, Repair.TRUNCATED_BRACKETS_CLOSED);
+
+		JsonNode danglingKey = objectMapper.readTree(extractor.extract("{\"summary\": \"s\", \"highl").getJson());
+		assertThat(danglingKey.get("highl").isNull()).isTrue();
+
+		JsonNode danglingComma = objectMapper.readTree(extractor.extract("{\"claims\": [\"a\",\n").getJson());
+		assertThat(danglingComma.get("claims")).hasSize(1);
+	}
+
+	@Test
+	void rejectsResponsesWithoutAnObject() {
+		assertThatThrownBy(() -> extractor.extract("I cannot help with that."))
+				.isInstanceOf(RuntimeException.class);
+	}
+}
@@ -0,0 +1,71 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.InternalAnalysisDTO;
+import com.vishal.aiyoutube.ai_analysis_service.dto.VideoDataProcessedEvent.TranscriptSegmentDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimestampResolverTest {
+
+	private final TimestampResolver resolver = new TimestampResolver();
+
+	@Test
+	void resolvesExactMatchToItsSegmentStart() {
+		List<TranscriptSegmentDTO> segments = List.of(
+				new TranscriptSegmentDTO(0.0, "Welcome back to the channel"),
+				new TranscriptSegmentDTO(125.4, "The new battery lasts two full days on a single charge"),
+				new TranscriptSegmentDTO(240.0, "Thanks for watching"));
+
+		assertThat(resolver.resolve(segments, List.of(
+				highlight("The new battery lasts two full days on a single charge", "Battery life claim"))))
+				.containsExactly("02:05");
+	}
+
+	@Test
+	void prefersTheSegmentSharingWordOrderForParaphrases() {
+		// Both segments mention interest and rates; only the first keeps them in order, the second also names the bank
+		List<TranscriptSegmentDTO> segments = List.of(
+				new TranscriptSegmentDTO(0.0, "Welcome everyone to the show"),
+				new TranscriptSegmentDTO(61.0, "Interest rates went up sharply today"),
+				new TranscriptSegmentDTO(122.0, "Now let's talk football scores"),
+				new TranscriptSegmentDTO(183.0, "Rates of interest, the bank said"),
+				new TranscriptSegmentDTO(244.0, "Thanks for watching"));
+
+		assertThat(resolver.resolve(segments, List.of(highlight("The bank lifted interest rates", ""))))
+				.containsExactly("01:01");
+	}
+
+	@Test
+	void fallsBackToZeroWhenNothingMatches() {
+		List<TranscriptSegmentDTO> segments = List.of(
+				new TranscriptSegmentDTO(30.0, "Cooking pasta takes ten minutes"));
+
+		assertThat(resolver.resolve(segments, List.of(highlight("Quarterly earnings beat forecasts", ""))))
+				.containsExactly("00:00");
+	}
+
+	@Test
+	void fallsBackToZeroWhenTheMatchingSegmentHasNoStart() {
+		List<TranscriptSegmentDTO> segments = List.of(
+				new TranscriptSegmentDTO(null, "Quarterly earnings beat forecasts"));
+
+		assertThat(resolver.resolve(segments, List.of(highlight("Quarterly earnings beat forecasts", ""))))
+				.containsExactly("00:00");
+	}
+
+	@Test
+	void formatsOffsetsAboveOneHourWithHours() {
+		assertThat(TimestampResolver.formatOffset(3725.9)).isEqualTo("1:02:05");
+		assertThat(TimestampResolver.formatOffset(59.0)).isEqualTo("00:59");
+	}
+
+	private static InternalAnalysisDTO.Highlight highlight(String shortSummary, String explanation) {
+		InternalAnalysisDTO.Highlight highlight = new InternalAnalysisDTO.Highlight();
+		highlight.setShortSummary(shortSummary);
+		highlight.setExplanation(explanation);
+		return highlight;
+	}
+}
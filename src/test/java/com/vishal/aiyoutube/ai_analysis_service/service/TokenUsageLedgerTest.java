@@ -0,0 +1,57 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import com.vishal.aiyoutube.ai_analysis_service.dto.ModelTokenUsageDTO;
+import com.vishal.aiyoutube.ai_analysis_service.dto.TokenBudgetMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenUsageLedgerTest {
+
+	private static final UUID TOPIC_A = UUID.fromString("00000000-0000-0000-0000-00000000000a");
+	private static final UUID TOPIC_B = UUID.fromString("00000000-0000-0000-0000-00000000000b");
+
+	private TokenUsageLedger ledger;
+
+	@BeforeEach
+	void setUp() {
+		ledger = new TokenUsageLedger(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(ledger, "topicBudget", 1000L);
+		ReflectionTestUtils.setField(ledger, "shortTranscriptAt", 0.5);
+		ReflectionTestUtils.setField(ledger, "smallModelAt", 0.75);
+		ReflectionTestUtils.setField(ledger, "localSynthesisAt", 0.9);
+	}
+
+	@Test
+	void splitsPackedUsageByWeightWithoutLosingTokens() {
+		Map<UUID, Integer> weights = new LinkedHashMap<>();
+		weights.put(TOPIC_A, 2000);
+		weights.put(TOPIC_B, 1000);
+
+		ledger.recordShared(weights, "model-x", 1001, 100);
+
+		assertThat(ledger.topicUsage(TOPIC_A).getPromptTokens()).isEqualTo(667);
+		assertThat(ledger.topicUsage(TOPIC_A).getCompletionTokens()).isEqualTo(66);
+		assertThat(ledger.topicUsage(TOPIC_B).getPromptTokens()).isEqualTo(334);
+		assertThat(ledger.topicUsage(TOPIC_B).getCompletionTokens()).isEqualTo(34);
+
+		// The model is charged once, with the full usage of the call
+		ModelTokenUsageDTO model = ledger.modelUsage().get(0);
+		assertThat(model.getTotalTokens()).isEqualTo(1101);
+		assertThat(model.getCalls()).isEqualTo(1);
+	}
+
+	@Test
+	void packedUsageCountsTowardsTheTopicBudget() {
+		ledger.recordShared(Map.of(TOPIC_A, 500), "model-x", 700, 100);
+
+		assertThat(ledger.modeFor(TOPIC_A)).isEqualTo(TokenBudgetMode.SMALL_MODEL);
+	}
+}
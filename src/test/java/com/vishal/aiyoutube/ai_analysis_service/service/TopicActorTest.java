@@ -0,0 +1,58 @@
+package com.vishal.aiyoutube.ai_analysis_service.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopicActorTest {
+
+	private final ForkJoinPool pool = new ForkJoinPool(4, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+
+	@AfterEach
+	void tearDown() {
+		pool.shutdownNow();
+	}
+
+	@Test
+	void serializesConcurrentMessagesWithoutLocks() throws Exception {
+		TopicActor actor = new TopicActor(UUID.randomUUID(), pool, 16);
+		ExecutorService senders = Executors.newFixedThreadPool(8);
+
+		for (int t = 0; t < 8; t++) {
+			senders.execute(() -> {
+				for (int i = 0; i < 1000; i++) {
+					// Unsynchronized read-modify-write: only safe if messages never overlap
+					actor.tell(state -> state.failedVideos++);
+				}
+			});
+		}
+		senders.shutdown();
+		assertThat(senders.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(actor.ask(state -> state.failedVideos).get(10, TimeUnit.SECONDS)).isEqualTo(8000);
+	}
+
+	@Test
+	void runsMessagesInSendOrder() throws Exception {
+		TopicActor actor = new TopicActor(UUID.randomUUID(), pool, 2);
+		List<Integer> seen = new ArrayList<>();
+
+		for (int i = 0; i < 50; i++) {
+			int n = i;
+			actor.tell(state -> seen.add(n));
+		}
+
+		assertThat(actor.ask(state -> List.copyOf(seen)).get(10, TimeUnit.SECONDS))
+				.containsExactlyElementsOf(IntStream.range(0, 50).boxed().toList());
+	}
+}